@@ -0,0 +1,55 @@
+package com.regulatory.benchmark;
+
+import com.regulatory.model.RegulatoryRule;
+import com.regulatory.perf.SyntheticRuleGenerator;
+import com.regulatory.service.RegulatoryRuleCsv;
+import org.apache.commons.csv.CSVPrinter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the per-row cost of writing the /rules/extract CSV, excluding the database and the network.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class CsvExportBenchmark {
+
+    private static final int ROWS = 10_000;
+
+    private List<RegulatoryRule> rules;
+
+    @Setup
+    public void setUp() {
+        rules = SyntheticRuleGenerator.generate(ROWS, 42);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void writeRows() throws IOException {
+        try (Writer writer = new BufferedWriter(Writer.nullWriter());
+             CSVPrinter csvPrinter = new CSVPrinter(writer, RegulatoryRuleCsv.FORMAT)) {
+            for (RegulatoryRule rule : rules) {
+                RegulatoryRuleCsv.printRecord(csvPrinter, rule);
+            }
+        }
+    }
+}
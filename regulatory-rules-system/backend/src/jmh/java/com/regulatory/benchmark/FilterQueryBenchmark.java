@@ -0,0 +1,125 @@
+package com.regulatory.benchmark;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.regulatory.config.MongoIndexInitializer;
+import com.regulatory.model.RegulatoryRule;
+import com.regulatory.perf.SyntheticRuleGenerator;
+import com.regulatory.repository.ColumnarRuleStore;
+import com.regulatory.repository.RegulatoryRulesRepositoryCustomImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Measures findByFilters for the filter shapes the RuleFilters UI produces. The {@code memory} backend
+ * is an in-memory stand-in for the repository; {@code columnar} queries the {@link ColumnarRuleStore};
+ * {@code mongo} seeds and queries the database at {@code -Dbenchmark.mongo.uri}
+ * (default mongodb://localhost:27017) through the real repository code.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class FilterQueryBenchmark {
+
+    private static final String DATABASE = "regulatory_rules_benchmark";
+    private static final Pageable FIRST_PAGE = PageRequest.of(0, 25, Sort.by("sequenceNumber"));
+
+    @Param({"10000", "100000", "1000000"})
+    private int ruleCount;
+
+    @Param({"memory", "columnar"})
+    private String backend;
+
+    private RuleQuery query;
+    private MongoClient mongoClient;
+
+    @FunctionalInterface
+    private interface RuleQuery {
+        Page<RegulatoryRule> find(String ruleType, String mdState, String shipToState, String channel, Pageable pageable);
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<RegulatoryRule> rules = SyntheticRuleGenerator.generate(ruleCount, 42);
+        if ("mongo".equals(backend)) {
+            mongoClient = MongoClients.create(System.getProperty("benchmark.mongo.uri", "mongodb://localhost:27017"));
+            MongoTemplate mongoTemplate = new MongoTemplate(mongoClient, DATABASE);
+            mongoTemplate.dropCollection(RegulatoryRule.class);
+            for (int from = 0; from < rules.size(); from += 10_000) {
+                mongoTemplate.insert(rules.subList(from, Math.min(from + 10_000, rules.size())), RegulatoryRule.class);
+            }
+            new MongoIndexInitializer(mongoTemplate).ensureIndexes();
+            query = new RegulatoryRulesRepositoryCustomImpl(mongoTemplate)::findByFilters;
+        } else if ("columnar".equals(backend)) {
+            ColumnarRuleStore store = new ColumnarRuleStore();
+            store.load(rules.iterator());
+            query = store::findByFilters;
+        } else {
+            query = (ruleType, mdState, shipToState, channel, pageable) -> {
+                // The generated rules are already ordered by sequence number
+                List<RegulatoryRule> matches = rules.stream()
+                        .filter(rule -> ruleType == null || ruleType.equals(rule.getRuleType()))
+                        .filter(rule -> mdState == null || mdState.equals(rule.getMdState()))
+                        .filter(rule -> shipToState == null || shipToState.equals(rule.getShipToState()))
+                        .filter(rule -> channel == null || Objects.equals(channel, rule.getChannel()))
+                        .collect(Collectors.toList());
+                int from = (int) Math.min(pageable.getOffset(), matches.size());
+                int to = Math.min(from + pageable.getPageSize(), matches.size());
+                return new PageImpl<>(matches.subList(from, to), pageable, matches.size());
+            };
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (mongoClient != null) {
+            mongoClient.getDatabase(DATABASE).drop();
+            mongoClient.close();
+        }
+    }
+
+    @Benchmark
+    public Page<RegulatoryRule> unfiltered() {
+        return query.find(null, null, null, null, FIRST_PAGE);
+    }
+
+    @Benchmark
+    public Page<RegulatoryRule> byMdState() {
+        return query.find(null, "CA", null, null, FIRST_PAGE);
+    }
+
+    @Benchmark
+    public Page<RegulatoryRule> byStatePair() {
+        return query.find("State", "CA", "NY", null, FIRST_PAGE);
+    }
+
+    @Benchmark
+    public Page<RegulatoryRule> byAllFilters() {
+        return query.find("State", "CA", "NY", "MAIL", FIRST_PAGE);
+    }
+}
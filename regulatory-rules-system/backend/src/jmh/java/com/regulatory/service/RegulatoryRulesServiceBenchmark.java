@@ -0,0 +1,57 @@
+package com.regulatory.service;
+
+import com.regulatory.model.RegulatoryRule;
+import com.regulatory.perf.SyntheticRuleGenerator;
+import com.regulatory.repository.RegulatoryRulesRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the CPU cost of the service methods that do not depend on the database. The repository
+ * is a stub; validateRule runs in-memory checks only.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class RegulatoryRulesServiceBenchmark {
+
+    private RegulatoryRulesService service;
+    private RegulatoryRule rule;
+
+    @Setup
+    public void setUp() {
+        RegulatoryRulesRepository repository = Mockito.mock(RegulatoryRulesRepository.class);
+        service = new RegulatoryRulesService(repository, event -> { }, new ConcurrentMapCacheManager(),
+                new RuleReadCoalescer(new SimpleMeterRegistry()));
+        rule = SyntheticRuleGenerator.generate(1, 42).get(0);
+    }
+
+    @Benchmark
+    public RegulatoryRule validateRule() {
+        service.validateRule(rule);
+        return rule;
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> getFieldMetadata() {
+        return service.getFieldMetadata();
+    }
+}
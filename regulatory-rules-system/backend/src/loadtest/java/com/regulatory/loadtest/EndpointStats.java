@@ -0,0 +1,51 @@
+package com.regulatory.loadtest;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Latencies and response codes of one operation. Every latency is kept, so percentiles are exact.
+ */
+final class EndpointStats {
+
+    /** Status recorded for requests that failed without a response. */
+    static final int NO_RESPONSE = 0;
+
+    private long[] latencies = new long[1024];
+    private int count;
+    private long errors;
+    private final Map<Integer, Long> statusCounts = new TreeMap<>();
+
+    synchronized void record(long latencyNanos, int status) {
+        if (count == latencies.length) {
+            latencies = Arrays.copyOf(latencies, count * 2);
+        }
+        latencies[count++] = latencyNanos;
+        statusCounts.merge(status, 1L, Long::sum);
+        if (status == NO_RESPONSE || status >= 400) {
+            errors++;
+        }
+    }
+
+    synchronized int getCount() {
+        return count;
+    }
+
+    synchronized long getErrors() {
+        return errors;
+    }
+
+    synchronized Map<Integer, Long> getStatusCounts() {
+        return new TreeMap<>(statusCounts);
+    }
+
+    /**
+     * Returns the latencies in ascending order.
+     */
+    synchronized long[] sortedLatencies() {
+        long[] sorted = Arrays.copyOf(latencies, count);
+        Arrays.sort(sorted);
+        return sorted;
+    }
+}
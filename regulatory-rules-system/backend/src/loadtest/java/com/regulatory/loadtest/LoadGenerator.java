@@ -0,0 +1,193 @@
+package com.regulatory.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.regulatory.model.RegulatoryRule;
+import com.regulatory.perf.SyntheticRuleGenerator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Sends the request mix at a fixed rate, whether or not earlier requests have finished (an open
+ * workload, like real users). Latency is measured from when a request was due rather than when a worker
+ * got to it, so a backed-up server shows up as latency instead of as a lower request rate.
+ */
+final class LoadGenerator {
+
+    private static final Logger log = LoggerFactory.getLogger(LoadGenerator.class);
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+    private static final long DRAIN_SECONDS = 60;
+
+    private final LoadTestConfig config;
+    private final URI baseUri;
+    private final List<String> ruleIds;
+    private final HttpClient client;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final String readerAuth = basicAuth("reader", "reader");
+    private final String writerAuth = basicAuth("writer", "writer");
+    private final Map<Operation, EndpointStats> stats = new EnumMap<>(Operation.class);
+    private final Queue<RegulatoryRule> writtenRules = new ConcurrentLinkedQueue<>();
+    private final AtomicLong createdRules = new AtomicLong();
+    private final String runId = Long.toString(System.currentTimeMillis(), 36).toUpperCase();
+
+    LoadGenerator(LoadTestConfig config, URI baseUri, List<String> ruleIds) {
+        this.config = config;
+        this.baseUri = baseUri;
+        this.ruleIds = ruleIds;
+        this.client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newCachedThreadPool())
+                .build();
+        config.mix.keySet().forEach(operation -> stats.put(operation, new EndpointStats()));
+    }
+
+    /**
+     * Runs the warmup and the measured period and returns the stats of the measured requests.
+     */
+    Map<Operation, EndpointStats> run() throws InterruptedException {
+        Operation[] weighted = weightedOperations();
+        Random random = new Random(config.seed);
+        ExecutorService workers = Executors.newFixedThreadPool(config.concurrency);
+
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / config.rate;
+        long start = System.nanoTime();
+        long measureFrom = start + TimeUnit.SECONDS.toNanos(config.warmupSeconds);
+        long end = measureFrom + TimeUnit.SECONDS.toNanos(config.durationSeconds);
+        log.info("Warming up for {}s, then measuring for {}s at {} requests/s", config.warmupSeconds,
+                config.durationSeconds, config.rate);
+
+        for (long due = start; due < end; due += intervalNanos) {
+            long now;
+            while ((now = System.nanoTime()) < due) {
+                LockSupport.parkNanos(due - now);
+            }
+            Operation operation = weighted[random.nextInt(weighted.length)];
+            long requestDue = due;
+            boolean measured = due >= measureFrom;
+            // Each request gets its own seeded generator, so the parameters do not depend on thread timing
+            Random requestRandom = new Random(random.nextLong());
+            workers.execute(() -> execute(operation, requestDue, measured, requestRandom));
+        }
+
+        workers.shutdown();
+        if (!workers.awaitTermination(DRAIN_SECONDS, TimeUnit.SECONDS)) {
+            log.warn("Requests still running {}s after the end of the test; they are not counted", DRAIN_SECONDS);
+            workers.shutdownNow();
+        }
+        return stats;
+    }
+
+    private Operation[] weightedOperations() {
+        int total = config.mix.values().stream().mapToInt(Integer::intValue).sum();
+        Operation[] weighted = new Operation[total];
+        int next = 0;
+        for (Map.Entry<Operation, Integer> entry : config.mix.entrySet()) {
+            for (int i = 0; i < entry.getValue(); i++) {
+                weighted[next++] = entry.getKey();
+            }
+        }
+        return weighted;
+    }
+
+    private void execute(Operation operation, long due, boolean measured, Random random) {
+        int status;
+        try {
+            status = call(operation, random);
+        } catch (IOException e) {
+            status = EndpointStats.NO_RESPONSE;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        if (measured) {
+            stats.get(operation).record(System.nanoTime() - due, status);
+        }
+    }
+
+    private int call(Operation operation, Random random) throws IOException, InterruptedException {
+        switch (operation) {
+            case LIST:
+                return get("/rules?mdState=" + pick(random, SyntheticRuleGenerator.STATES)
+                        + "&channel=" + pick(random, SyntheticRuleGenerator.CHANNELS)
+                        + "&page=" + random.nextInt(3) + "&size=25");
+            case GET:
+                return get("/rules/" + pick(random, ruleIds));
+            case FIELDS:
+                return get("/rules/fields");
+            case EXPORT:
+                return get("/rules/extract?mdState=" + pick(random, SyntheticRuleGenerator.STATES));
+            case WRITE:
+                RegulatoryRule existing = random.nextBoolean() ? writtenRules.poll() : null;
+                return existing != null ? update(existing, random) : create(random);
+            default:
+                throw new IllegalStateException("Unhandled operation " + operation);
+        }
+    }
+
+    private int get(String path) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(baseUri.resolve("api" + path))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Authorization", readerAuth)
+                .GET()
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private int create(Random random) throws IOException, InterruptedException {
+        RegulatoryRule rule = SyntheticRuleGenerator.generateRule(random, 0);
+        rule.setId(null);
+        rule.setSequenceNumber("LT" + runId + "-" + createdRules.incrementAndGet());
+        return write("POST", "/rules", rule);
+    }
+
+    private int update(RegulatoryRule rule, Random random) throws IOException, InterruptedException {
+        rule.setMaxQuantity(rule.getQuantity() + random.nextInt(300));
+        return write("PUT", "/rules/" + rule.getId(), rule);
+    }
+
+    /**
+     * Sends the rule and keeps the saved copy, with its new version, for a later update. A rule is only
+     * in the pool while no request is working on it, so updates never conflict with each other.
+     */
+    private int write(String method, String path, RegulatoryRule rule) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(baseUri.resolve("api" + path))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Authorization", writerAuth)
+                .header("Content-Type", "application/json")
+                .method(method, HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(rule)))
+                .build();
+        HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() < 300) {
+            writtenRules.offer(objectMapper.readValue(response.body(), RegulatoryRule.class));
+        }
+        return response.statusCode();
+    }
+
+    private static <T> T pick(Random random, List<T> values) {
+        return values.get(random.nextInt(values.size()));
+    }
+
+    private static String basicAuth(String user, String password) {
+        return "Basic " + Base64.getEncoder().encodeToString((user + ":" + password).getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,110 @@
+package com.regulatory.loadtest;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Load test options, given as {@code --name=value} arguments. Every option has a default, so a bare run
+ * seeds 50,000 rules into a local mongod and drives 200 requests per second for a minute. Options starting
+ * with {@code app.} are passed on to the application, e.g. {@code --app.rules.change-stream.enabled=false}.
+ */
+final class LoadTestConfig {
+
+    private static final String APP_PREFIX = "app.";
+
+    private static final String DEFAULT_MIX = "list=40,get=30,fields=15,write=10,export=5";
+
+    final String mongoHost;
+    final int mongoPort;
+    final String database;
+    final boolean seedData;
+    final int rules;
+    final long seed;
+    final int rate;
+    final int warmupSeconds;
+    final int durationSeconds;
+    final int concurrency;
+    final Map<Operation, Integer> mix;
+    final Path report;
+    final Path baseline;
+    final double maxRegressionPercent;
+    final List<String> appArgs = new ArrayList<>();
+
+    private LoadTestConfig(Map<String, String> options) {
+        mongoHost = options.getOrDefault("mongo-host", "localhost");
+        mongoPort = Integer.parseInt(options.getOrDefault("mongo-port", "27017"));
+        database = options.getOrDefault("database", "regulatory_rules_loadtest");
+        seedData = Boolean.parseBoolean(options.getOrDefault("seed-data", "true"));
+        rules = Integer.parseInt(options.getOrDefault("rules", "50000"));
+        seed = Long.parseLong(options.getOrDefault("seed", "42"));
+        rate = Integer.parseInt(options.getOrDefault("rate", "200"));
+        warmupSeconds = Integer.parseInt(options.getOrDefault("warmup", "10"));
+        durationSeconds = Integer.parseInt(options.getOrDefault("duration", "60"));
+        concurrency = Integer.parseInt(options.getOrDefault("concurrency", "64"));
+        mix = parseMix(options.getOrDefault("mix", DEFAULT_MIX));
+        report = Path.of(options.getOrDefault("report", "target/loadtest-report.json"));
+        baseline = options.containsKey("baseline") ? Path.of(options.get("baseline")) : null;
+        maxRegressionPercent = Double.parseDouble(options.getOrDefault("max-regression-percent", "20"));
+        options.forEach((name, value) -> {
+            if (name.startsWith(APP_PREFIX)) {
+                appArgs.add("--" + name.substring(APP_PREFIX.length()) + "=" + value);
+            }
+        });
+        if (rate < 1 || durationSeconds < 1 || concurrency < 1 || rules < 1) {
+            throw new IllegalArgumentException("rate, duration, concurrency and rules must be positive");
+        }
+    }
+
+    static LoadTestConfig parse(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            if (arg.isBlank()) {
+                continue;
+            }
+            int separator = arg.indexOf('=');
+            if (!arg.startsWith("--") || separator < 0) {
+                throw new IllegalArgumentException("Expected --name=value but got " + arg);
+            }
+            options.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+        return new LoadTestConfig(options);
+    }
+
+    private static Map<Operation, Integer> parseMix(String value) {
+        Map<Operation, Integer> mix = new LinkedHashMap<>();
+        for (String entry : value.split(",")) {
+            String[] parts = entry.trim().split("=");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Expected operation=weight in the mix but got " + entry);
+            }
+            int weight = Integer.parseInt(parts[1].trim());
+            if (weight > 0) {
+                mix.put(Operation.fromName(parts[0].trim()), weight);
+            }
+        }
+        if (mix.isEmpty()) {
+            throw new IllegalArgumentException("The mix must give at least one operation a positive weight");
+        }
+        return mix;
+    }
+
+    /**
+     * The options that shape the workload, as written to the report so that runs can be compared.
+     */
+    Map<String, Object> describe() {
+        Map<String, Object> description = new LinkedHashMap<>();
+        description.put("rules", rules);
+        description.put("seed", seed);
+        description.put("targetRate", rate);
+        description.put("warmupSeconds", warmupSeconds);
+        description.put("durationSeconds", durationSeconds);
+        description.put("concurrency", concurrency);
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        mix.forEach((operation, weight) -> weights.put(operation.getName(), weight));
+        description.put("mix", weights);
+        return description;
+    }
+}
@@ -0,0 +1,67 @@
+package com.regulatory.loadtest;
+
+import com.regulatory.RegulatoryRulesMaintenanceApplication;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Load test entry point: seeds the database, starts the application on a random port, runs the request
+ * mix over HTTP and writes the report. Exits with status 1 when a baseline is given and the run regressed.
+ */
+public final class LoadTestMain {
+
+    private static final Logger log = LoggerFactory.getLogger(LoadTestMain.class);
+
+    private LoadTestMain() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = LoadTestConfig.parse(args);
+        List<String> ruleIds = config.seedData ? RuleSeeder.seed(config) : RuleSeeder.existingIds(config);
+
+        Map<String, Object> report;
+        try (ConfigurableApplicationContext context =
+                     SpringApplication.run(RegulatoryRulesMaintenanceApplication.class, applicationArgs(config))) {
+            String port = context.getEnvironment().getProperty("local.server.port");
+            URI baseUri = URI.create("http://localhost:" + port + "/");
+            log.info("Application started on port {}", port);
+
+            report = LoadTestReport.build(config, new LoadGenerator(config, baseUri, ruleIds).run());
+        }
+
+        LoadTestReport.write(report, config.report);
+        log.info("Report written to {}\n{}", config.report.toAbsolutePath(), LoadTestReport.format(report));
+
+        if (config.baseline != null) {
+            List<String> regressions = LoadTestReport.compare(report, config.baseline, config.maxRegressionPercent);
+            if (!regressions.isEmpty()) {
+                regressions.forEach(regression -> log.error("Regression against {}: {}", config.baseline, regression));
+                System.exit(1);
+            }
+            log.info("No regressions against {}", config.baseline);
+        }
+        System.exit(0);
+    }
+
+    private static String[] applicationArgs(LoadTestConfig config) {
+        List<String> args = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--spring.data.mongodb.host=" + config.mongoHost,
+                "--spring.data.mongodb.port=" + config.mongoPort,
+                "--spring.data.mongodb.database=" + config.database,
+                // Start from the seeded data rather than a snapshot of another database
+                "--rules.snapshot.enabled=false",
+                "--export.jobs.directory=target/loadtest-exports",
+                // Per-request debug logging would show up in the latencies
+                "--logging.level.com.regulatory=INFO"));
+        args.addAll(config.appArgs);
+        return args.toArray(new String[0]);
+    }
+}
@@ -0,0 +1,154 @@
+package com.regulatory.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds the JSON report of a run. Keys are always written in the same order and numbers are rounded, so
+ * reports from two builds can be compared with a plain diff, or with {@link #compare} against a baseline.
+ */
+final class LoadTestReport {
+
+    /** Error rate increase, as a fraction of requests, tolerated before a run counts as a regression. */
+    private static final double ERROR_RATE_TOLERANCE = 0.01;
+
+    private static final ObjectMapper MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    private LoadTestReport() {
+    }
+
+    static Map<String, Object> build(LoadTestConfig config, Map<Operation, EndpointStats> stats) {
+        Map<String, Object> endpoints = new LinkedHashMap<>();
+        long requests = 0;
+        long errors = 0;
+        for (Map.Entry<Operation, EndpointStats> entry : stats.entrySet()) {
+            EndpointStats endpoint = entry.getValue();
+            requests += endpoint.getCount();
+            errors += endpoint.getErrors();
+            endpoints.put(entry.getKey().getName(), endpoint(config, endpoint));
+        }
+
+        Map<String, Object> overall = new LinkedHashMap<>();
+        overall.put("requests", requests);
+        overall.put("errors", errors);
+        overall.put("errorRate", rate(errors, requests));
+        overall.put("throughput", round((double) requests / config.durationSeconds));
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("config", config.describe());
+        report.put("overall", overall);
+        report.put("endpoints", endpoints);
+        return report;
+    }
+
+    private static Map<String, Object> endpoint(LoadTestConfig config, EndpointStats stats) {
+        long[] latencies = stats.sortedLatencies();
+        Map<String, Object> latencyMs = new LinkedHashMap<>();
+        latencyMs.put("p50", millis(percentile(latencies, 50)));
+        latencyMs.put("p99", millis(percentile(latencies, 99)));
+        latencyMs.put("p999", millis(percentile(latencies, 99.9)));
+        latencyMs.put("max", millis(latencies.length == 0 ? 0 : latencies[latencies.length - 1]));
+        latencyMs.put("mean", millis(mean(latencies)));
+
+        Map<String, Long> statusCodes = new LinkedHashMap<>();
+        stats.getStatusCounts().forEach((status, count) ->
+                statusCodes.put(status == EndpointStats.NO_RESPONSE ? "none" : String.valueOf(status), count));
+
+        Map<String, Object> endpoint = new LinkedHashMap<>();
+        endpoint.put("requests", stats.getCount());
+        endpoint.put("errors", stats.getErrors());
+        endpoint.put("errorRate", rate(stats.getErrors(), stats.getCount()));
+        endpoint.put("throughput", round((double) stats.getCount() / config.durationSeconds));
+        endpoint.put("latencyMs", latencyMs);
+        endpoint.put("statusCodes", statusCodes);
+        return endpoint;
+    }
+
+    static void write(Map<String, Object> report, Path path) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        MAPPER.writeValue(path.toFile(), report);
+    }
+
+    static String format(Map<String, Object> report) throws IOException {
+        return MAPPER.writeValueAsString(report);
+    }
+
+    /**
+     * Compares the run with a baseline report and returns one line per endpoint whose p99 latency grew by
+     * more than {@code maxRegressionPercent} or whose error rate grew by more than one percentage point.
+     * Endpoints missing from either report are skipped.
+     */
+    static List<String> compare(Map<String, Object> report, Path baselinePath, double maxRegressionPercent)
+            throws IOException {
+        JsonNode current = MAPPER.valueToTree(report).path("endpoints");
+        JsonNode baseline = MAPPER.readTree(baselinePath.toFile()).path("endpoints");
+        List<String> regressions = new ArrayList<>();
+        current.fields().forEachRemaining(entry -> {
+            JsonNode before = baseline.path(entry.getKey());
+            if (before.isMissingNode()) {
+                return;
+            }
+            JsonNode after = entry.getValue();
+            double p99Before = before.path("latencyMs").path("p99").asDouble();
+            double p99After = after.path("latencyMs").path("p99").asDouble();
+            if (p99Before > 0 && p99After > p99Before * (1 + maxRegressionPercent / 100)) {
+                regressions.add(String.format("%s: p99 %.2f ms -> %.2f ms", entry.getKey(), p99Before, p99After));
+            }
+            double errorsBefore = before.path("errorRate").asDouble();
+            double errorsAfter = after.path("errorRate").asDouble();
+            if (errorsAfter > errorsBefore + ERROR_RATE_TOLERANCE) {
+                regressions.add(String.format("%s: error rate %.4f -> %.4f", entry.getKey(), errorsBefore, errorsAfter));
+            }
+        });
+        return regressions;
+    }
+
+    /**
+     * Nearest-rank percentile of sorted latencies.
+     */
+    private static long percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percentile / 100 * sorted.length);
+        return sorted[Math.max(rank, 1) - 1];
+    }
+
+    private static long mean(long[] values) {
+        if (values.length == 0) {
+            return 0;
+        }
+        double sum = 0;
+        for (long value : values) {
+            sum += value;
+        }
+        return (long) (sum / values.length);
+    }
+
+    private static BigDecimal millis(long nanos) {
+        return BigDecimal.valueOf(nanos).movePointLeft(6).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    private static BigDecimal rate(long errors, long requests) {
+        return requests == 0 ? BigDecimal.ZERO.setScale(4)
+                : BigDecimal.valueOf(errors).divide(BigDecimal.valueOf(requests), 4, RoundingMode.HALF_UP);
+    }
+
+    private static BigDecimal round(double value) {
+        return BigDecimal.valueOf(value).setScale(2, RoundingMode.HALF_UP);
+    }
+}
@@ -0,0 +1,41 @@
+package com.regulatory.loadtest;
+
+/**
+ * The request types of the load mix, named as in {@code --mix} and the report.
+ */
+enum Operation {
+
+    /** Filtered, paged rule listing. */
+    LIST("list"),
+
+    /** Single rule by id. */
+    GET("get"),
+
+    /** Field metadata for the UI. */
+    FIELDS("fields"),
+
+    /** Rule create or optimistic update, half and half. */
+    WRITE("write"),
+
+    /** CSV extract of one MD state. */
+    EXPORT("export");
+
+    private final String name;
+
+    Operation(String name) {
+        this.name = name;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    static Operation fromName(String name) {
+        for (Operation operation : values()) {
+            if (operation.name.equals(name)) {
+                return operation;
+            }
+        }
+        throw new IllegalArgumentException("Unknown operation: " + name);
+    }
+}
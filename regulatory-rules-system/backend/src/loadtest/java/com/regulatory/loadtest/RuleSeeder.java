@@ -0,0 +1,70 @@
+package com.regulatory.loadtest;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.regulatory.model.RegulatoryRule;
+import com.regulatory.perf.SyntheticRuleGenerator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Fills the load test database with synthetic rules before the application starts, so every run begins
+ * from the same data.
+ */
+final class RuleSeeder {
+
+    private static final Logger log = LoggerFactory.getLogger(RuleSeeder.class);
+
+    private static final int BATCH_SIZE = 5000;
+
+    private RuleSeeder() {
+    }
+
+    /**
+     * Drops the load test database and inserts {@code config.rules} generated rules. Returns their ids.
+     */
+    static List<String> seed(LoadTestConfig config) {
+        try (MongoClient client = MongoClients.create(connectionString(config))) {
+            MongoTemplate template = new MongoTemplate(client, config.database);
+            template.getDb().drop();
+
+            List<RegulatoryRule> rules = SyntheticRuleGenerator.generate(config.rules, config.seed);
+            for (RegulatoryRule rule : rules) {
+                rule.setVersion(0L);
+                rule.setChangeSeq(0L);
+            }
+            for (int from = 0; from < rules.size(); from += BATCH_SIZE) {
+                template.insert(rules.subList(from, Math.min(from + BATCH_SIZE, rules.size())), RegulatoryRule.class);
+            }
+            log.info("Seeded {} rules into {}", rules.size(), config.database);
+            return rules.stream().map(RegulatoryRule::getId).collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Reads the ids of the rules already in the load test database, for runs with {@code --seed-data=false}.
+     */
+    static List<String> existingIds(LoadTestConfig config) {
+        try (MongoClient client = MongoClients.create(connectionString(config))) {
+            MongoTemplate template = new MongoTemplate(client, config.database);
+            Query query = new Query();
+            query.fields().include("_id");
+            List<String> ids = new ArrayList<>();
+            template.find(query, RegulatoryRule.class).forEach(rule -> ids.add(rule.getId()));
+            if (ids.isEmpty()) {
+                throw new IllegalStateException("No rules in " + config.database + "; run with --seed-data=true first");
+            }
+            return ids;
+        }
+    }
+
+    private static String connectionString(LoadTestConfig config) {
+        return "mongodb://" + config.mongoHost + ":" + config.mongoPort;
+    }
+}
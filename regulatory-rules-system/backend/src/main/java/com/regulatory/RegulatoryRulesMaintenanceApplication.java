@@ -3,9 +3,11 @@ package com.regulatory;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.data.mongodb.repository.config.EnableMongoRepositories;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @EnableMongoRepositories
+@EnableScheduling
 public class RegulatoryRulesMaintenanceApplication {
     public static void main(String[] args) {
         SpringApplication.run(RegulatoryRulesMaintenanceApplication.class, args);
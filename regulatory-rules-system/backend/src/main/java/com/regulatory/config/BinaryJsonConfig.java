@@ -0,0 +1,29 @@
+package com.regulatory.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/**
+ * Lets clients ask for Smile ({@code application/x-jackson-smile}) or CBOR ({@code application/cbor})
+ * instead of JSON through the Accept header. Both converters use the application's Jackson settings,
+ * so the payload has the same schema as the JSON one. JSON stays the default for browsers and any
+ * client that does not ask for a binary type explicitly.
+ */
+@Configuration
+public class BinaryJsonConfig {
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.createXmlMapper(false).factory(new SmileFactory()).build());
+    }
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.createXmlMapper(false).factory(new CBORFactory()).build());
+    }
+}
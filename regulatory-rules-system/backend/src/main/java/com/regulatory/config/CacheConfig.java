@@ -0,0 +1,90 @@
+package com.regulatory.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.regulatory.service.RuleReadCoalescer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.interceptor.KeyGenerator;
+import org.springframework.cache.interceptor.SimpleKey;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+
+import java.time.Duration;
+
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String RULES_CACHE = "rules";
+    public static final String RULE_PAGES_CACHE = "rulePages";
+    public static final String RULE_COUNTS_CACHE = "ruleCounts";
+    public static final String RULE_FACETS_CACHE = "ruleFacets";
+    public static final String FIELD_METADATA_CACHE = "fieldMetadata";
+
+    @Value("${cache.rules.max-size}")
+    private long rulesMaxSize;
+
+    @Value("${cache.rules.ttl-seconds}")
+    private long rulesTtlSeconds;
+
+    @Value("${cache.rule-pages.max-size}")
+    private long rulePagesMaxSize;
+
+    @Value("${cache.rule-pages.ttl-seconds}")
+    private long rulePagesTtlSeconds;
+
+    @Value("${cache.rule-facets.ttl-seconds:" + Long.MAX_VALUE + "}")
+    private long facetsTtlSeconds;
+
+    @Value("${listing.count-cache-ttl-seconds}")
+    private long countTtlSeconds;
+
+    @Bean
+    public CacheManager cacheManager() {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.registerCustomCache(RULES_CACHE, buildCache(rulesMaxSize, rulesTtlSeconds));
+        cacheManager.registerCustomCache(RULE_PAGES_CACHE, buildCache(rulePagesMaxSize, rulePagesTtlSeconds));
+        cacheManager.registerCustomCache(RULE_COUNTS_CACHE, buildCache(rulePagesMaxSize, countTtlSeconds));
+        // Facet counts only change with rule writes, which clear the cache; the TTL only matters when
+        // they are read from a secondary that had not yet seen the write
+        cacheManager.registerCustomCache(RULE_FACETS_CACHE, buildCache(rulePagesMaxSize, facetsTtlSeconds));
+        cacheManager.registerCustomCache(FIELD_METADATA_CACHE, buildCache(1, Long.MAX_VALUE));
+        return cacheManager;
+    }
+
+    /**
+     * Builds keys for filter queries and id lookups so that blank and missing filters share a cache entry.
+     * The key also holds the write generation at the start of the call, so a read that began before a
+     * write and finishes after the write cleared the caches stores its result under a key no later read
+     * asks for.
+     */
+    @Bean
+    public KeyGenerator ruleQueryKeyGenerator(RuleReadCoalescer coalescer) {
+        return (target, method, params) -> new SimpleKey(queryKey(params), coalescer.generation());
+    }
+
+    /**
+     * Builds a key from query parameters, treating blank strings as missing.
+     */
+    public static SimpleKey queryKey(Object... params) {
+        Object[] normalized = new Object[params.length];
+        for (int i = 0; i < params.length; i++) {
+            Object param = params[i];
+            normalized[i] = param instanceof String && !StringUtils.hasText((String) param) ? null : param;
+        }
+        return new SimpleKey(normalized);
+    }
+
+    private com.github.benmanes.caffeine.cache.Cache<Object, Object> buildCache(long maxSize, long ttlSeconds) {
+        Caffeine<Object, Object> builder = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .recordStats();
+        if (ttlSeconds != Long.MAX_VALUE) {
+            builder.expireAfterWrite(Duration.ofSeconds(ttlSeconds));
+        }
+        return builder.build();
+    }
+}
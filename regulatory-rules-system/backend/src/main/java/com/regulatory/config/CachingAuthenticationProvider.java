@@ -0,0 +1,83 @@
+package com.regulatory.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+
+/**
+ * Remembers successful username/password authentications for a short time so that repeated HTTP Basic
+ * requests skip the BCrypt verification of the delegate. Credentials are never stored: entries are keyed
+ * by an HMAC of the username and password under a random per-process key.
+ */
+public class CachingAuthenticationProvider implements AuthenticationProvider {
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    private final AuthenticationProvider delegate;
+    private final Cache<String, Authentication> verified;
+    private final SecretKeySpec key;
+    private final ThreadLocal<Mac> mac = ThreadLocal.withInitial(this::newMac);
+
+    public CachingAuthenticationProvider(AuthenticationProvider delegate, Duration ttl, long maxSize) {
+        this.delegate = delegate;
+        this.verified = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maxSize)
+                .build();
+        byte[] secret = new byte[32];
+        new SecureRandom().nextBytes(secret);
+        this.key = new SecretKeySpec(secret, HMAC_ALGORITHM);
+    }
+
+    @Override
+    public Authentication authenticate(Authentication authentication) throws AuthenticationException {
+        if (!(authentication instanceof UsernamePasswordAuthenticationToken) || authentication.getCredentials() == null) {
+            return delegate.authenticate(authentication);
+        }
+
+        String cacheKey = cacheKey(authentication.getName(), authentication.getCredentials().toString());
+        Authentication cached = verified.getIfPresent(cacheKey);
+        if (cached != null) {
+            return cached;
+        }
+
+        Authentication result = delegate.authenticate(authentication);
+        if (result != null && result.isAuthenticated()) {
+            verified.put(cacheKey, result);
+        }
+        return result;
+    }
+
+    @Override
+    public boolean supports(Class<?> authentication) {
+        return delegate.supports(authentication);
+    }
+
+    private String cacheKey(String username, String password) {
+        Mac hmac = mac.get();
+        hmac.update(username.getBytes(StandardCharsets.UTF_8));
+        hmac.update((byte) 0);
+        return Base64.getEncoder().encodeToString(hmac.doFinal(password.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private Mac newMac() {
+        try {
+            Mac hmac = Mac.getInstance(HMAC_ALGORITHM);
+            hmac.init(key);
+            return hmac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to initialize " + HMAC_ALGORITHM, e);
+        }
+    }
+}
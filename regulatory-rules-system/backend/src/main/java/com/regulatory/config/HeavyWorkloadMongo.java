@@ -0,0 +1,29 @@
+package com.regulatory.config;
+
+import com.mongodb.client.MongoClient;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+/**
+ * A MongoTemplate on its own connection pool for exports, imports and bulk updates, so that they
+ * cannot use up the connections interactive reads need. It is wrapped rather than exposed as a
+ * MongoTemplate bean so that it does not replace the auto-configured template.
+ */
+public class HeavyWorkloadMongo implements AutoCloseable {
+
+    private final MongoClient client;
+    private final MongoTemplate template;
+
+    public HeavyWorkloadMongo(MongoClient client, MongoTemplate template) {
+        this.client = client;
+        this.template = template;
+    }
+
+    public MongoTemplate getTemplate() {
+        return template;
+    }
+
+    @Override
+    public void close() {
+        client.close();
+    }
+}
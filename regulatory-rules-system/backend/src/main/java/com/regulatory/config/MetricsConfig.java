@@ -0,0 +1,40 @@
+package com.regulatory.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.mongodb.MongoCommandTagsProvider;
+import io.micrometer.core.instrument.binder.mongodb.MongoMetricsCommandListener;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+public class MetricsConfig {
+
+    @Value("${metrics.mongo.slow-command-threshold-ms}")
+    private long slowCommandThresholdMs;
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry registry) {
+        return new TimedAspect(registry);
+    }
+
+    /**
+     * Replaces the listener behind Spring Boot's mongodb.driver.commands timer.
+     */
+    @Bean
+    public MongoMetricsCommandListener mongoMetricsCommandListener(MeterRegistry registry,
+                                                                   MongoCommandTagsProvider tagsProvider) {
+        return new MongoCommandTimingListener(registry, tagsProvider);
+    }
+
+    @Bean
+    public MongoClientSettingsBuilderCustomizer mongoCommandMetricsCustomizer(MeterRegistry registry) {
+        MongoCommandMetricsListener listener =
+                new MongoCommandMetricsListener(registry, Duration.ofMillis(slowCommandThresholdMs));
+        return builder -> builder.addCommandListener(listener);
+    }
+}
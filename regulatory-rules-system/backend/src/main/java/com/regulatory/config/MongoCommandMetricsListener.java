@@ -0,0 +1,125 @@
+package com.regulatory.config;
+
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Complements the driver command timers registered by Spring Boot with the number of documents each
+ * query command returns, and logs commands slower than the configured threshold together with the
+ * shape of their filter (field names and operators with the values masked). GetMores of awaitData
+ * cursors such as the change stream are left out, since they wait for new data on purpose.
+ */
+@Slf4j
+public class MongoCommandMetricsListener implements CommandListener {
+
+    private static final Set<String> QUERY_COMMANDS = Set.of("find", "aggregate", "count", "distinct", "getMore");
+
+    private final MeterRegistry registry;
+    private final long slowThresholdNanos;
+    private final Map<Integer, String> shapesByRequest = new ConcurrentHashMap<>();
+
+    public MongoCommandMetricsListener(MeterRegistry registry, Duration slowThreshold) {
+        this.registry = registry;
+        this.slowThresholdNanos = slowThreshold.toNanos();
+    }
+
+    @Override
+    public void commandStarted(CommandStartedEvent event) {
+        if (!QUERY_COMMANDS.contains(event.getCommandName()) || isAwaitDataGetMore(event)) {
+            return;
+        }
+        // The command document is only valid during this callback, so the shape is captured here
+        BsonDocument command = event.getCommand();
+        BsonValue target = command.get(event.getCommandName());
+        StringBuilder shape = new StringBuilder(event.getCommandName())
+                .append(' ')
+                .append(target != null && target.isString() ? target.asString().getValue() : target);
+        appendShape(shape, " filter=", command.get("filter"));
+        appendShape(shape, " query=", command.get("query"));
+        appendShape(shape, " pipeline=", command.get("pipeline"));
+        appendShape(shape, " sort=", command.get("sort"));
+        shapesByRequest.put(event.getRequestId(), shape.toString());
+    }
+
+    @Override
+    public void commandSucceeded(CommandSucceededEvent event) {
+        String shape = shapesByRequest.remove(event.getRequestId());
+        if (shape == null) {
+            return;
+        }
+
+        BsonDocument cursor = event.getResponse().getDocument("cursor", null);
+        if (cursor != null) {
+            BsonArray batch = cursor.containsKey("firstBatch")
+                    ? cursor.getArray("firstBatch")
+                    : cursor.getArray("nextBatch", new BsonArray());
+            DistributionSummary.builder("mongodb.command.documents")
+                    .description("Documents returned per query command")
+                    .tag("command", event.getCommandName())
+                    .register(registry)
+                    .record(batch.size());
+        }
+
+        long elapsedNanos = event.getElapsedTime(TimeUnit.NANOSECONDS);
+        if (elapsedNanos > slowThresholdNanos) {
+            log.warn("Slow Mongo command took {} ms: {}", TimeUnit.NANOSECONDS.toMillis(elapsedNanos), shape);
+        }
+    }
+
+    @Override
+    public void commandFailed(CommandFailedEvent event) {
+        shapesByRequest.remove(event.getRequestId());
+    }
+
+    /**
+     * Whether the command is a getMore of a tailable awaitData cursor. The driver only sends maxTimeMS
+     * with a getMore when the cursor was opened with a max await time, i.e. when the server may hold it.
+     */
+    static boolean isAwaitDataGetMore(CommandStartedEvent event) {
+        return "getMore".equals(event.getCommandName()) && event.getCommand().containsKey("maxTimeMS");
+    }
+
+    private void appendShape(StringBuilder shape, String label, BsonValue value) {
+        if (value != null) {
+            shape.append(label).append(mask(value));
+        }
+    }
+
+    private String mask(BsonValue value) {
+        if (value.isDocument()) {
+            StringBuilder masked = new StringBuilder("{");
+            value.asDocument().forEach((key, nested) -> {
+                if (masked.length() > 1) {
+                    masked.append(", ");
+                }
+                masked.append(key).append(": ").append(mask(nested));
+            });
+            return masked.append('}').toString();
+        }
+        if (value.isArray()) {
+            StringBuilder masked = new StringBuilder("[");
+            for (BsonValue element : value.asArray()) {
+                if (masked.length() > 1) {
+                    masked.append(", ");
+                }
+                masked.append(mask(element));
+            }
+            return masked.append(']').toString();
+        }
+        return "?";
+    }
+}
@@ -0,0 +1,47 @@
+package com.regulatory.config;
+
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.mongodb.MongoCommandTagsProvider;
+import io.micrometer.core.instrument.binder.mongodb.MongoMetricsCommandListener;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The driver command timer registered by Spring Boot, minus the getMores of awaitData cursors (the
+ * change stream). Those wait on the server for new data by design and would otherwise dominate the timer.
+ */
+public class MongoCommandTimingListener extends MongoMetricsCommandListener {
+
+    private final Set<Integer> skippedRequests = ConcurrentHashMap.newKeySet();
+
+    public MongoCommandTimingListener(MeterRegistry registry, MongoCommandTagsProvider tagsProvider) {
+        super(registry, tagsProvider);
+    }
+
+    @Override
+    public void commandStarted(CommandStartedEvent event) {
+        if (MongoCommandMetricsListener.isAwaitDataGetMore(event)) {
+            skippedRequests.add(event.getRequestId());
+            return;
+        }
+        super.commandStarted(event);
+    }
+
+    @Override
+    public void commandSucceeded(CommandSucceededEvent event) {
+        if (!skippedRequests.remove(event.getRequestId())) {
+            super.commandSucceeded(event);
+        }
+    }
+
+    @Override
+    public void commandFailed(CommandFailedEvent event) {
+        if (!skippedRequests.remove(event.getRequestId())) {
+            super.commandFailed(event);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.regulatory.config;
+
+import com.regulatory.model.RegulatoryRule;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Creates the indexes backing the rule filters and keeps them in sync with the definitions below.
+ * The filters are equality matches on any combination of ruleType/mdState/shipToState/channel, and
+ * MongoDB can only return an equality match in sequenceNumber order without an in-memory SORT when
+ * the index holds exactly the filtered fields ahead of sequenceNumber. So there is one index per
+ * combination (sixteen, including the unfiltered listing), each with the filtered fields in that
+ * order, then sequenceNumber, then _id. The _id suffix lets keyset pagination on (sequenceNumber, id)
+ * walk the index in order in either direction; the change feed walks the (changeSeq, _id) index the
+ * same way. Sorting on any other field still sorts the matches in memory. RuleFilterQueriesExplainTest
+ * checks the query plans against a real mongod.
+ * <p>
+ * A unique index on sequenceNumber makes the database reject duplicate sequence numbers, including
+ * from concurrent writers. The indexes are built before the web server starts, and startup fails if
+ * the unique index cannot be built, since nothing else checks sequence numbers for uniqueness.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MongoIndexInitializer {
+
+    private static final String MANAGED_PREFIX = "rules_";
+
+    /** Name of the unique index on sequenceNumber. */
+    public static final String SEQUENCE_NUMBER_INDEX = MANAGED_PREFIX + "sequenceNumber";
+
+    private static final String[] FILTER_FIELDS = {"ruleType", "mdState", "shipToState", "channel"};
+
+    private final MongoTemplate mongoTemplate;
+
+    @PostConstruct
+    public void ensureIndexes() {
+        IndexOperations indexOps = mongoTemplate.indexOps(RegulatoryRule.class);
+        Map<String, Index> desired = desiredIndexes();
+
+        // Drop managed indexes that were removed or whose keys changed
+        for (IndexInfo existing : indexOps.getIndexInfo()) {
+            String name = existing.getName();
+            if (!name.startsWith(MANAGED_PREFIX)) {
+                continue;
+            }
+            Index index = desired.get(name);
+            if (index == null || !sameDefinition(existing, index)) {
+                log.info("Dropping outdated index {}", name);
+                indexOps.dropIndex(name);
+            }
+        }
+
+        desired.forEach((name, index) -> {
+            log.debug("Ensuring index {}", name);
+            try {
+                indexOps.ensureIndex(index);
+            } catch (DuplicateKeyException e) {
+                throw new IllegalStateException("Cannot create unique index " + name
+                        + ": the collection holds duplicate values. Remove the duplicates and restart.", e);
+            }
+        });
+    }
+
+    private Map<String, Index> desiredIndexes() {
+        Map<String, Index> indexes = new LinkedHashMap<>();
+        // Largest combination first; bit i of the mask selects FILTER_FIELDS[i]
+        for (int mask = (1 << FILTER_FIELDS.length) - 1; mask >= 0; mask--) {
+            List<String> fields = new ArrayList<>();
+            for (int i = 0; i < FILTER_FIELDS.length; i++) {
+                if ((mask & (1 << i)) != 0) {
+                    fields.add(FILTER_FIELDS[i]);
+                }
+            }
+            fields.add("sequenceNumber");
+            fields.add("_id");
+            addIndex(indexes, fields.toArray(new String[0]));
+        }
+        addIndex(indexes, "changeSeq", "_id");
+        addIndex(indexes, "sequenceNumber").unique();
+        return indexes;
+    }
+
+    /**
+     * Tells whether a duplicate key error message (E11000) names the unique sequenceNumber index, as
+     * opposed to another unique key such as _id.
+     */
+    public static boolean isSequenceNumberClash(String message) {
+        return message != null && message.contains("index: " + SEQUENCE_NUMBER_INDEX + " ");
+    }
+
+    private Index addIndex(Map<String, Index> indexes, String... fields) {
+        String name = MANAGED_PREFIX + String.join("_", fields);
+        Index index = new Index().named(name);
+        for (String field : fields) {
+            index.on(field, Sort.Direction.ASC);
+        }
+        indexes.put(name, index);
+        return index;
+    }
+
+    private boolean sameDefinition(IndexInfo existing, Index index) {
+        List<String> existingKeys = new ArrayList<>();
+        existing.getIndexFields().forEach(field -> existingKeys.add(field.getKey()));
+        List<String> desiredKeys = new ArrayList<>(index.getIndexKeys().keySet());
+        boolean unique = Boolean.TRUE.equals(index.getIndexOptions().get("unique"));
+        return existingKeys.equals(desiredKeys) && existing.isUnique() == unique;
+    }
+}
@@ -0,0 +1,53 @@
+package com.regulatory.config;
+
+import com.mongodb.MongoClientSettings;
+import com.mongodb.client.MongoClient;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.mongo.MongoClientFactory;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.boot.autoconfigure.mongo.MongoProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.SimpleMongoClientDatabaseFactory;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Splits the Mongo connections between interactive requests, which use the auto-configured client,
+ * and heavy workloads, which get a second client with its own pool.
+ */
+@Configuration
+public class MongoPoolConfig {
+
+    @Value("${mongo.pool.interactive.max-size:80}")
+    private int interactivePoolSize;
+
+    @Value("${mongo.pool.heavy.max-size:20}")
+    private int heavyPoolSize;
+
+    @Bean
+    public MongoClientSettingsBuilderCustomizer interactivePoolCustomizer() {
+        return builder -> builder.applyToConnectionPoolSettings(pool -> pool.maxSize(interactivePoolSize));
+    }
+
+    @Bean(destroyMethod = "close")
+    public HeavyWorkloadMongo heavyWorkloadMongo(MongoProperties properties,
+                                                 ObjectProvider<MongoClientSettingsBuilderCustomizer> customizers,
+                                                 MappingMongoConverter converter) {
+        // Same settings as the main client (connection string, metrics listener), with its own pool size last
+        List<MongoClientSettingsBuilderCustomizer> heavyCustomizers = customizers.orderedStream()
+                .collect(Collectors.toList());
+        heavyCustomizers.add(builder -> builder
+                .applicationName("rules-heavy")
+                .applyToConnectionPoolSettings(pool -> pool.maxSize(heavyPoolSize)));
+        MongoClient client = new MongoClientFactory(heavyCustomizers)
+                .createMongoClient(MongoClientSettings.builder().build());
+        MongoTemplate template = new MongoTemplate(
+                new SimpleMongoClientDatabaseFactory(client, properties.getMongoClientDatabase()), converter);
+        return new HeavyWorkloadMongo(client, template);
+    }
+}
@@ -0,0 +1,111 @@
+package com.regulatory.config;
+
+import com.mongodb.ReadPreference;
+import com.regulatory.service.RuleChangedEvent;
+import com.regulatory.service.RuleSetLoadedEvent;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read preferences for queries that can tolerate some staleness: listings, counts and facets, and
+ * exports. Everything else, in particular lookups by id right after a write, the change feed and the
+ * version reads of bulk updates, stays on the primary. Secondary reads are bounded by
+ * {@code mongo.read.max-staleness-seconds}; the driver requires at least 90 seconds (-1 for no bound).
+ * <p>
+ * For {@code mongo.read.primary-after-write-seconds} after a rule change, seen locally or through the
+ * change stream, these reads go to the primary as well, so that the listing a user reloads after saving
+ * shows the save and no stale page is cached under the new write generation. The window defaults to the
+ * staleness bound, the longest a secondary the driver picks may lag behind.
+ */
+@Slf4j
+@Getter
+@Component
+public class MongoReadRouting {
+
+    private static final long MIN_MAX_STALENESS_SECONDS = 90;
+
+    private final ReadPreference listing;
+    private final ReadPreference export;
+    @Getter(AccessLevel.NONE)
+    private final long primaryAfterWriteNanos;
+    @Getter(AccessLevel.NONE)
+    private volatile long primaryUntilNanos = System.nanoTime();
+
+    public MongoReadRouting(@Value("${mongo.read.listing:primary}") String listing,
+                            @Value("${mongo.read.export:primary}") String export,
+                            @Value("${mongo.read.max-staleness-seconds:-1}") long maxStalenessSeconds,
+                            @Value("${mongo.read.primary-after-write-seconds:${mongo.read.max-staleness-seconds:-1}}")
+                                    long primaryAfterWriteSeconds) {
+        this.listing = readPreference(listing, maxStalenessSeconds);
+        this.export = readPreference(export, maxStalenessSeconds);
+        this.primaryAfterWriteNanos = TimeUnit.SECONDS.toNanos(Math.max(primaryAfterWriteSeconds, 0));
+        log.info("Listing reads use {}, export reads use {}", this.listing, this.export);
+    }
+
+    // Runs before the caches and the write generation move on, so no read under the new generation
+    // is sent to a secondary
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @EventListener
+    public void onRulesChanged(RuleChangedEvent event) {
+        primaryUntilNanos = System.nanoTime() + primaryAfterWriteNanos;
+    }
+
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @EventListener
+    public void onRuleSetLoaded(RuleSetLoadedEvent event) {
+        primaryUntilNanos = System.nanoTime() + primaryAfterWriteNanos;
+    }
+
+    /**
+     * Whether rules changed so recently that a secondary may not have the change yet.
+     */
+    public boolean isPrimaryRequired() {
+        return System.nanoTime() - primaryUntilNanos < 0;
+    }
+
+    private static ReadPreference readPreference(String mode, long maxStalenessSeconds) {
+        ReadPreference preference = ReadPreference.valueOf(mode);
+        if (preference.equals(ReadPreference.primary()) || maxStalenessSeconds < 0) {
+            return preference;
+        }
+        if (maxStalenessSeconds < MIN_MAX_STALENESS_SECONDS) {
+            throw new IllegalArgumentException("mongo.read.max-staleness-seconds must be at least "
+                    + MIN_MAX_STALENESS_SECONDS + " or -1");
+        }
+        return ReadPreference.valueOf(mode, List.of(), maxStalenessSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Returns a template that shares the client and converter of {@code template} but reads with
+     * {@code preference}, or {@code template} itself for primary reads.
+     */
+    public static MongoTemplate routed(MongoTemplate template, ReadPreference preference) {
+        if (preference.equals(ReadPreference.primary())) {
+            return template;
+        }
+        MongoTemplate routed = new MongoTemplate(template.getMongoDatabaseFactory(), template.getConverter());
+        routed.setReadPreference(preference);
+        return routed;
+    }
+
+    public static ReactiveMongoTemplate routed(ReactiveMongoTemplate template, ReadPreference preference) {
+        if (preference.equals(ReadPreference.primary())) {
+            return template;
+        }
+        ReactiveMongoTemplate routed = new ReactiveMongoTemplate(template.getMongoDatabaseFactory(),
+                template.getConverter());
+        routed.setReadPreference(preference);
+        return routed;
+    }
+}
@@ -0,0 +1,47 @@
+package com.regulatory.config;
+
+import com.mongodb.client.result.UpdateResult;
+import com.regulatory.model.RegulatoryRule;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+/**
+ * Gives rules written before optimistic versioning and the change feed were introduced an initial
+ * version and change sequence number. Without a version, Spring Data treats a save of such a rule as
+ * an insert; without a change sequence number, the rule would never appear in the change feed.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RuleFieldBackfill {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillFields() {
+        UpdateResult result = mongoTemplate.updateMulti(
+                new Query(Criteria.where("version").exists(false)),
+                new Update().set("version", 0L),
+                RegulatoryRule.class);
+        if (result.getModifiedCount() > 0) {
+            log.info("Initialized the version of {} rules", result.getModifiedCount());
+        }
+        result = mongoTemplate.updateMulti(
+                new Query(Criteria.where("changeSeq").exists(false)),
+                new Update().set("changeSeq", 0L),
+                RegulatoryRule.class);
+        if (result.getModifiedCount() > 0) {
+            log.info("Initialized the change sequence number of {} rules", result.getModifiedCount());
+        }
+    }
+}
@@ -3,6 +3,8 @@ package com.regulatory.config;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
 import org.springframework.security.config.annotation.method.configuration.EnableGlobalMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
@@ -17,6 +19,7 @@ import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.List;
 
@@ -43,6 +46,30 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
     @Value("${cors.max-age}")
     private long maxAge;
 
+    @Value("${security.auth-cache.enabled}")
+    private boolean authCacheEnabled;
+
+    @Value("${security.auth-cache.ttl-seconds}")
+    private long authCacheTtlSeconds;
+
+    @Value("${security.auth-cache.max-size}")
+    private long authCacheMaxSize;
+
+    @Override
+    protected void configure(AuthenticationManagerBuilder auth) {
+        DaoAuthenticationProvider daoProvider = new DaoAuthenticationProvider();
+        daoProvider.setUserDetailsService(userDetailsService());
+        daoProvider.setPasswordEncoder(passwordEncoder());
+
+        // BCrypt costs tens of milliseconds per check, so verified credentials are cached briefly
+        if (authCacheEnabled) {
+            auth.authenticationProvider(new CachingAuthenticationProvider(daoProvider,
+                    Duration.ofSeconds(authCacheTtlSeconds), authCacheMaxSize));
+        } else {
+            auth.authenticationProvider(daoProvider);
+        }
+    }
+
     @Override
     protected void configure(HttpSecurity http) throws Exception {
         http
@@ -52,6 +79,7 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
                 .antMatchers("/api/rules/fields").permitAll()  // Allow access to field metadata
                 .antMatchers("/api/rules").hasAnyRole("READ_ONLY", "WRITE_ACCESS")
                 .antMatchers("/api/rules/**").hasAnyRole("READ_ONLY", "WRITE_ACCESS")
+                .antMatchers("/reactive/rules/**").hasAnyRole("READ_ONLY", "WRITE_ACCESS")
                 .anyRequest().authenticated()
             .and()
             .httpBasic();  // Using basic auth for simplicity
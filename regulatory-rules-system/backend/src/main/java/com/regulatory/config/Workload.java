@@ -0,0 +1,16 @@
+package com.regulatory.config;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Assigns a controller method to a {@link WorkloadClass}. Unannotated endpoints are {@link WorkloadClass#INTERACTIVE}.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Workload {
+
+    WorkloadClass value();
+}
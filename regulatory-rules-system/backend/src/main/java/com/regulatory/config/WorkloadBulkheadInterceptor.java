@@ -0,0 +1,83 @@
+package com.regulatory.config;
+
+import com.regulatory.exception.WorkloadRejectedException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits how many requests of each {@link WorkloadClass} run at once. A request that cannot get a
+ * permit within the class's wait time is rejected with {@link WorkloadRejectedException} instead of
+ * queueing. The permit is held until the request completes, including any async processing.
+ */
+public class WorkloadBulkheadInterceptor implements AsyncHandlerInterceptor {
+
+    private static final String PERMIT_ATTRIBUTE = WorkloadBulkheadInterceptor.class.getName() + ".permit";
+
+    private final Map<WorkloadClass, Bulkhead> bulkheads = new EnumMap<>(WorkloadClass.class);
+    private final MeterRegistry meterRegistry;
+
+    public WorkloadBulkheadInterceptor(Map<WorkloadClass, Bulkhead> bulkheads, MeterRegistry meterRegistry) {
+        this.bulkheads.putAll(bulkheads);
+        this.meterRegistry = meterRegistry;
+        this.bulkheads.forEach((workloadClass, bulkhead) ->
+                Gauge.builder("rules.workload.active", bulkhead.permits,
+                                permits -> bulkhead.maxConcurrent - permits.availablePermits())
+                        .tag("class", workloadClass.name().toLowerCase())
+                        .register(meterRegistry));
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+            throws InterruptedException {
+        // An async dispatch continues a request that already holds its permit
+        if (request.getDispatcherType() == DispatcherType.ASYNC || !(handler instanceof HandlerMethod)) {
+            return true;
+        }
+        Workload workload = ((HandlerMethod) handler).getMethodAnnotation(Workload.class);
+        WorkloadClass workloadClass = workload == null ? WorkloadClass.INTERACTIVE : workload.value();
+        Bulkhead bulkhead = bulkheads.get(workloadClass);
+        if (bulkhead == null) {
+            return true;
+        }
+        if (!bulkhead.permits.tryAcquire(bulkhead.maxWaitMillis, TimeUnit.MILLISECONDS)) {
+            meterRegistry.counter("rules.workload.rejected", "class", workloadClass.name().toLowerCase()).increment();
+            throw new WorkloadRejectedException(workloadClass, bulkhead.retryAfterSeconds);
+        }
+        request.setAttribute(PERMIT_ATTRIBUTE, bulkhead);
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        Object bulkhead = request.getAttribute(PERMIT_ATTRIBUTE);
+        if (bulkhead != null) {
+            request.removeAttribute(PERMIT_ATTRIBUTE);
+            ((Bulkhead) bulkhead).permits.release();
+        }
+    }
+
+    public static class Bulkhead {
+        private final int maxConcurrent;
+        private final long maxWaitMillis;
+        private final long retryAfterSeconds;
+        private final Semaphore permits;
+
+        public Bulkhead(int maxConcurrent, long maxWaitMillis, long retryAfterSeconds) {
+            this.maxConcurrent = maxConcurrent;
+            this.maxWaitMillis = maxWaitMillis;
+            this.retryAfterSeconds = retryAfterSeconds;
+            this.permits = new Semaphore(maxConcurrent);
+        }
+    }
+}
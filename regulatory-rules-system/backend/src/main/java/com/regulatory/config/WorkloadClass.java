@@ -0,0 +1,23 @@
+package com.regulatory.config;
+
+/**
+ * Request classes that get their own concurrency limit, so heavy work cannot take every worker
+ * thread and Mongo connection away from the UI.
+ */
+public enum WorkloadClass {
+
+    /** Page loads, lookups, counts and single-rule writes. The default for every endpoint. */
+    INTERACTIVE,
+
+    /** Streaming CSV extracts and export downloads. */
+    EXPORT,
+
+    /** Imports, bulk updates and batch evaluation. */
+    BULK,
+
+    /**
+     * Non-blocking streams under /reactive. They do not hold a worker thread while waiting on Mongo,
+     * so the limit bounds open connections rather than threads.
+     */
+    STREAMING
+}
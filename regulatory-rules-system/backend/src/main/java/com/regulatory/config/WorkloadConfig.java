@@ -0,0 +1,39 @@
+package com.regulatory.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Registers the per-class concurrency limits, read from
+ * {@code workload.<class>.max-concurrent}, {@code .max-wait-ms} and {@code .retry-after-seconds}.
+ * A class without a max-concurrent setting is not limited.
+ */
+@Configuration
+@RequiredArgsConstructor
+public class WorkloadConfig implements WebMvcConfigurer {
+
+    private final Environment environment;
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        Map<WorkloadClass, WorkloadBulkheadInterceptor.Bulkhead> bulkheads = new EnumMap<>(WorkloadClass.class);
+        for (WorkloadClass workloadClass : WorkloadClass.values()) {
+            String prefix = "workload." + workloadClass.name().toLowerCase() + ".";
+            Integer maxConcurrent = environment.getProperty(prefix + "max-concurrent", Integer.class);
+            if (maxConcurrent != null && maxConcurrent > 0) {
+                bulkheads.put(workloadClass, new WorkloadBulkheadInterceptor.Bulkhead(maxConcurrent,
+                        environment.getProperty(prefix + "max-wait-ms", Long.class, 0L),
+                        environment.getProperty(prefix + "retry-after-seconds", Long.class, 1L)));
+            }
+        }
+        registry.addInterceptor(new WorkloadBulkheadInterceptor(bulkheads, meterRegistry));
+    }
+}
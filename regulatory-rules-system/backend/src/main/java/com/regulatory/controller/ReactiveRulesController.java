@@ -0,0 +1,108 @@
+package com.regulatory.controller;
+
+import com.regulatory.config.Workload;
+import com.regulatory.config.WorkloadClass;
+import com.regulatory.model.RegulatoryRule;
+import com.regulatory.model.RuleEvaluationRequest;
+import com.regulatory.model.RuleEvaluationResult;
+import com.regulatory.repository.ReactiveRegulatoryRulesRepository;
+import com.regulatory.service.RegulatoryRuleCsv;
+import com.regulatory.service.RuleEvaluationService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import javax.validation.Valid;
+
+/**
+ * Non-blocking variants of the read-heavy endpoints. Rules come from the reactive Mongo driver and
+ * are written to the client as they arrive, so a slow Mongo or a long stream does not hold a request
+ * thread while it waits.
+ */
+@RestController
+@RequestMapping("/reactive/rules")
+@RequiredArgsConstructor
+public class ReactiveRulesController {
+
+    private final ReactiveRegulatoryRulesRepository repository;
+    private final RuleEvaluationService evaluationService;
+
+    @Value("${export.batch-size:500}")
+    private int batchSize;
+
+    @Value("${export.flush-interval:1000}")
+    private int flushInterval;
+
+    /**
+     * Streams the matching rules as NDJSON. {@code size=0} streams every match.
+     */
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Workload(WorkloadClass.STREAMING)
+    public Flux<RegulatoryRule> getRules(
+            @RequestParam(required = false) String ruleType,
+            @RequestParam(required = false) String mdState,
+            @RequestParam(required = false) String shipToState,
+            @RequestParam(required = false) String channel,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "25") int size,
+            @RequestParam(defaultValue = "sequenceNumber") String sort) {
+
+        if (page < 0 || size < 0) {
+            throw new IllegalArgumentException("page and size must not be negative");
+        }
+        String[] sortParts = sort.split(",");
+        Sort.Direction direction = sortParts.length > 1
+                ? Sort.Direction.fromString(sortParts[1].trim())
+                : Sort.Direction.ASC;
+        // The id tie-break keeps pages stable when the sort field has duplicates
+        Sort order = Sort.by(direction, sortParts[0].trim()).and(Sort.by(direction, "id"));
+        return repository.findByFilters(ruleType, mdState, shipToState, channel, order,
+                (long) page * size, size, batchSize);
+    }
+
+    @GetMapping("/{id}")
+    @Workload(WorkloadClass.STREAMING)
+    public Mono<ResponseEntity<RegulatoryRule>> getRuleById(@PathVariable String id) {
+        return repository.findById(id)
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * The same CSV as {@code GET /rules/extract}, written in chunks of {@code export.flush-interval} rows.
+     */
+    @GetMapping(value = "/extract", produces = "text/csv")
+    @Workload(WorkloadClass.STREAMING)
+    public ResponseEntity<Flux<String>> exportToCsv(
+            @RequestParam(required = false) String ruleType,
+            @RequestParam(required = false) String mdState,
+            @RequestParam(required = false) String shipToState,
+            @RequestParam(required = false) String channel) {
+
+        Flux<String> rows = repository.findByFilters(ruleType, mdState, shipToState, channel,
+                        Sort.by("sequenceNumber"), 0, 0, batchSize)
+                .map(RegulatoryRuleCsv::formatLine)
+                .buffer(flushInterval)
+                .map(lines -> String.join("", lines));
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("text/csv"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=regulatory_rules.csv")
+                .body(Flux.concat(Mono.just(RegulatoryRuleCsv.headerLine()), rows));
+    }
+
+    /**
+     * Evaluation reads only the in-memory index, so it is served directly; the Mono lets clients of this
+     * API use one programming model for all calls.
+     */
+    @PostMapping("/evaluate")
+    @Workload(WorkloadClass.STREAMING)
+    public Mono<RuleEvaluationResult> evaluateRules(@Valid @RequestBody RuleEvaluationRequest request) {
+        return Mono.fromCallable(() -> evaluationService.evaluate(request));
+    }
+}
@@ -1,10 +1,41 @@
 package com.regulatory.controller;
 
+import com.regulatory.config.Workload;
+import com.regulatory.config.WorkloadClass;
 import com.regulatory.model.RegulatoryRule;
+import com.regulatory.model.RuleBulkUpdateRequest;
+import com.regulatory.model.RuleBulkUpdateResult;
+import com.regulatory.model.RuleChanges;
+import com.regulatory.model.RuleColumns;
+import com.regulatory.model.RuleConflict;
+import com.regulatory.model.RuleConflictReport;
+import com.regulatory.model.RuleCount;
+import com.regulatory.model.RuleEvaluationRequest;
+import com.regulatory.model.RuleEvaluationResult;
+import com.regulatory.model.RuleExportJob;
+import com.regulatory.model.RuleFacets;
+import com.regulatory.model.RuleImportResult;
+import com.regulatory.model.RuleSearchResults;
+import com.regulatory.model.RuleSlice;
+import com.regulatory.service.BatchEvaluationService;
+import com.regulatory.service.RegulatoryRuleCsv;
 import com.regulatory.service.RegulatoryRulesService;
+import com.regulatory.service.RuleBulkUpdateService;
+import com.regulatory.service.RuleChangeFeedService;
+import com.regulatory.service.RuleConflictAnalyzer;
+import com.regulatory.service.RuleEvaluationService;
+import com.regulatory.service.RuleExportService;
+import com.regulatory.service.RuleImportService;
+import com.regulatory.service.RuleSearchService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
-import org.apache.commons.csv.CSVFormat;
+import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.csv.CSVPrinter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
@@ -15,15 +46,28 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
+import java.io.BufferedWriter;
+import java.io.FilterOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.Writer;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
 
+@Slf4j
 @RestController
 @RequestMapping("/rules")
 @RequiredArgsConstructor
@@ -31,25 +75,137 @@ import java.util.Map;
 public class RegulatoryRulesController {
 
     private final RegulatoryRulesService service;
+    private final RuleEvaluationService evaluationService;
+    private final BatchEvaluationService batchEvaluationService;
+    private final RuleImportService importService;
+    private final RuleBulkUpdateService bulkUpdateService;
+    private final RuleChangeFeedService changeFeedService;
+    private final RuleExportService exportService;
+    private final RuleConflictAnalyzer conflictAnalyzer;
+    private final RuleSearchService searchService;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${export.flush-interval:1000}")
+    private int exportFlushInterval;
 
     @GetMapping("/fields")
     public ResponseEntity<List<Map<String, Object>>> getFieldMetadata() {
         return ResponseEntity.ok(service.getFieldMetadata());
     }
 
+    /**
+     * Lists rules. {@code fields} limits the response (and the query) to the named fields; with
+     * {@code format=columnar} the page holds one array of values per field instead of one object per rule.
+     */
     @GetMapping
-    public ResponseEntity<Page<RegulatoryRule>> getRules(
+    public ResponseEntity<?> getRules(
             @RequestParam(required = false) String ruleType,
             @RequestParam(required = false) String mdState,
             @RequestParam(required = false) String shipToState,
             @RequestParam(required = false) String channel,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "25") int size,
-            @RequestParam(defaultValue = "sequenceNumber") String sort) {
+            @RequestParam(defaultValue = "sequenceNumber") String sort,
+            @RequestParam(required = false) String fields,
+            @RequestParam(defaultValue = "json") String format) {
 
         PageRequest pageRequest = PageRequest.of(page, size, Sort.by(sort));
-        Page<RegulatoryRule> rules = service.getRules(ruleType, mdState, shipToState, channel, pageRequest);
-        return ResponseEntity.ok(rules);
+        boolean columnar = "columnar".equals(format);
+        if (!columnar && !"json".equals(format)) {
+            throw new IllegalArgumentException("Unsupported format: " + format);
+        }
+        if (fields == null && !columnar) {
+            Page<RegulatoryRule> rules = service.getRules(ruleType, mdState, shipToState, channel, pageRequest);
+            return ResponseEntity.ok(rules);
+        }
+
+        List<String> selected = service.resolveFields(fields);
+        Page<Object[]> values = service.getRuleValues(ruleType, mdState, shipToState, channel, pageRequest, selected);
+        if (columnar) {
+            return ResponseEntity.ok(RuleColumns.of(selected, values));
+        }
+        return ResponseEntity.ok(values.map(row -> {
+            Map<String, Object> rule = new LinkedHashMap<>();
+            for (int i = 0; i < selected.size(); i++) {
+                rule.put(selected.get(i), row[i]);
+            }
+            return rule;
+        }));
+    }
+
+    @GetMapping("/scroll")
+    public ResponseEntity<RuleSlice> scrollRules(
+            @RequestParam(required = false) String ruleType,
+            @RequestParam(required = false) String mdState,
+            @RequestParam(required = false) String shipToState,
+            @RequestParam(required = false) String channel,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "25") int size,
+            @RequestParam(defaultValue = "sequenceNumber") String sort) {
+
+        String[] sortParts = sort.split(",");
+        Sort.Direction direction = sortParts.length > 1
+                ? Sort.Direction.fromString(sortParts[1].trim())
+                : Sort.Direction.ASC;
+        return ResponseEntity.ok(service.getRulesAfter(ruleType, mdState, shipToState, channel,
+                sortParts[0].trim(), direction, cursor, size));
+    }
+
+    @GetMapping("/count")
+    public ResponseEntity<RuleCount> countRules(
+            @RequestParam(required = false) String ruleType,
+            @RequestParam(required = false) String mdState,
+            @RequestParam(required = false) String shipToState,
+            @RequestParam(required = false) String channel) {
+        return ResponseEntity.ok(service.countRules(ruleType, mdState, shipToState, channel));
+    }
+
+    @GetMapping("/facets")
+    public ResponseEntity<RuleFacets> getFacets(
+            @RequestParam(required = false) String ruleType,
+            @RequestParam(required = false) String mdState,
+            @RequestParam(required = false) String shipToState,
+            @RequestParam(required = false) String channel) {
+        return ResponseEntity.ok(service.getFacets(ruleType, mdState, shipToState, channel));
+    }
+
+    /**
+     * Finds rules whose sequenceNumber, zipCode, regCatCode, protocol or userLocation contains {@code q},
+     * best matches first.
+     */
+    @GetMapping("/search")
+    public ResponseEntity<RuleSearchResults> searchRules(
+            @RequestParam(required = false) String q,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size) {
+        return ResponseEntity.ok(searchService.search(q, page, size));
+    }
+
+    /**
+     * Returns the rules inserted or updated after the token, oldest change first. Omit the token for
+     * a full initial sync, then pass back nextToken to receive only later changes.
+     */
+    @GetMapping("/changes")
+    public ResponseEntity<RuleChanges> getChanges(
+            @RequestParam(required = false) String since,
+            @RequestParam(defaultValue = "${changes.page-size:500}") int size) {
+        return ResponseEntity.ok(changeFeedService.getChanges(since, size));
+    }
+
+    /**
+     * Lists pairs of rules that can apply to the same request but set different limits.
+     */
+    @GetMapping("/conflicts")
+    @Workload(WorkloadClass.EXPORT)
+    public ResponseEntity<RuleConflictReport> getConflicts() {
+        return ResponseEntity.ok(conflictAnalyzer.analyze());
+    }
+
+    @GetMapping("/{id}/conflicts")
+    public ResponseEntity<List<RuleConflict>> getRuleConflicts(@PathVariable String id) {
+        RegulatoryRule rule = service.getRuleById(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Rule not found"));
+        return ResponseEntity.ok(conflictAnalyzer.findConflicts(rule));
     }
 
     @GetMapping("/{id}")
@@ -64,7 +220,9 @@ public class RegulatoryRulesController {
     public ResponseEntity<RegulatoryRule> createRule(@Valid @RequestBody RegulatoryRule rule) {
         try {
             RegulatoryRule createdRule = service.createRule(rule);
-            return new ResponseEntity<>(createdRule, HttpStatus.CREATED);
+            return ResponseEntity.status(HttpStatus.CREATED)
+                    .headers(conflictHeaders(createdRule))
+                    .body(createdRule);
         } catch (IllegalArgumentException e) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
         }
@@ -77,63 +235,148 @@ public class RegulatoryRulesController {
             @Valid @RequestBody RegulatoryRule rule) {
         try {
             RegulatoryRule updatedRule = service.updateRule(id, rule);
-            return ResponseEntity.ok(updatedRule);
+            return ResponseEntity.ok()
+                    .headers(conflictHeaders(updatedRule))
+                    .body(updatedRule);
         } catch (IllegalArgumentException e) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
         }
     }
 
+    @PatchMapping
+    @Workload(WorkloadClass.BULK)
+    @PreAuthorize("hasRole('WRITE_ACCESS')")
+    public ResponseEntity<RuleBulkUpdateResult> bulkUpdateRules(@Valid @RequestBody RuleBulkUpdateRequest request) {
+        return ResponseEntity.ok(bulkUpdateService.bulkUpdate(request));
+    }
+
+    @PostMapping("/evaluate")
+    public ResponseEntity<RuleEvaluationResult> evaluateRules(@Valid @RequestBody RuleEvaluationRequest request) {
+        return ResponseEntity.ok(evaluationService.evaluate(request));
+    }
+
+    @PostMapping(value = "/evaluate/batch", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    @Workload(WorkloadClass.BULK)
+    public void evaluateRulesBatch(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        batchEvaluationService.evaluate(request.getInputStream(), response.getOutputStream());
+    }
+
+    @PostMapping(value = "/import", consumes = {"text/csv", MediaType.APPLICATION_NDJSON_VALUE})
+    @Workload(WorkloadClass.BULK)
+    @PreAuthorize("hasRole('WRITE_ACCESS')")
+    public ResponseEntity<RuleImportResult> importRules(
+            HttpServletRequest request,
+            @RequestParam(defaultValue = "false") boolean dryRun,
+            @RequestParam(defaultValue = "false") boolean ordered) throws IOException {
+        MediaType contentType = MediaType.parseMediaType(request.getContentType());
+        RuleImportResult result = MediaType.APPLICATION_NDJSON.isCompatibleWith(contentType)
+                ? importService.importNdjson(request.getInputStream(), dryRun, ordered)
+                : importService.importCsv(request.getInputStream(), dryRun, ordered);
+        return ResponseEntity.ok(result);
+    }
+
     @GetMapping("/extract")
+    @Workload(WorkloadClass.EXPORT)
     public void exportToCsv(
             @RequestParam(required = false) String ruleType,
             @RequestParam(required = false) String mdState,
             @RequestParam(required = false) String shipToState,
             @RequestParam(required = false) String channel,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
             HttpServletResponse response) throws IOException {
         
         response.setContentType("text/csv");
         response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=regulatory_rules.csv");
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
 
-        // Get all rules for export (no pagination)
-        Page<RegulatoryRule> rules = service.getRules(ruleType, mdState, shipToState, channel, 
-            PageRequest.of(0, Integer.MAX_VALUE, Sort.by("sequenceNumber")));
-
-        String[] headers = {
-            "Sequence Number", "Rule Type", "MD State", "Ship To State", "Zip Code",
-            "Channel", "Reg Cat Code", "Drug Schedule", "Refill Number", "Quantity",
-            "Days Supply", "User Location", "Dispensing Location", "Protocol",
-            "Days Ago", "Max Days Supply", "Max Quantity", "Max Refill",
-            "Max Days Allowed To Expiry Date"
-        };
+        boolean gzip = acceptsGzip(acceptEncoding);
+        CountingOutputStream countingOut = new CountingOutputStream(response.getOutputStream());
+        OutputStream out = countingOut;
+        if (gzip) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+            out = new GZIPOutputStream(out, true);
+        }
 
-        try (Writer writer = new OutputStreamWriter(response.getOutputStream());
-             CSVPrinter csvPrinter = new CSVPrinter(writer, CSVFormat.DEFAULT.withHeader(headers))) {
+        // Rows are written as they arrive from the cursor, so memory stays flat regardless of result size
+        Timer.Sample sample = Timer.start(meterRegistry);
+        int rowCount = 0;
+        try (Stream<RegulatoryRule> rules = service.streamRules(ruleType, mdState, shipToState, channel,
+                 Sort.by("sequenceNumber"));
+             Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+             CSVPrinter csvPrinter = new CSVPrinter(writer, RegulatoryRuleCsv.FORMAT)) {
             
-            for (RegulatoryRule rule : rules.getContent()) {
-                csvPrinter.printRecord(
-                    rule.getSequenceNumber(),
-                    rule.getRuleType(),
-                    rule.getMdState(),
-                    rule.getShipToState(),
-                    rule.getZipCode(),
-                    rule.getChannel(),
-                    rule.getRegCatCode(),
-                    rule.getDrugSchedule(),
-                    rule.getRefillNumber(),
-                    rule.getQuantity(),
-                    rule.getDaysSupply(),
-                    rule.getUserLocation(),
-                    rule.getDispensingLocation(),
-                    rule.getProtocol(),
-                    rule.getDaysAgo(),
-                    rule.getMaxDaysSupply(),
-                    rule.getMaxQuantity(),
-                    rule.getMaxRefill(),
-                    rule.getMaxDaysAllowedToExpiryDate()
-                );
+            Iterator<RegulatoryRule> iterator = rules.iterator();
+            while (iterator.hasNext()) {
+                RegulatoryRuleCsv.printRecord(csvPrinter, iterator.next());
+                if (++rowCount % exportFlushInterval == 0) {
+                    csvPrinter.flush();
+                }
             }
             csvPrinter.flush();
+        } finally {
+            long elapsedNanos = sample.stop(meterRegistry.timer("rules.export", "gzip", String.valueOf(gzip)));
+            Counter.builder("rules.export.rows").register(meterRegistry).increment(rowCount);
+            Counter.builder("rules.export.bytes").baseUnit("bytes").register(meterRegistry)
+                    .increment(countingOut.getCount());
+            log.debug("Exported {} rules ({} bytes) at {} rows/sec", rowCount, countingOut.getCount(),
+                    elapsedNanos > 0 ? rowCount * 1_000_000_000L / elapsedNanos : rowCount);
+        }
+    }
+
+    /**
+     * Starts a background CSV extract with the same filters as {@link #exportToCsv}. Poll the returned
+     * job and download its file once it has completed.
+     */
+    @PostMapping("/extract/jobs")
+    public ResponseEntity<RuleExportJob> createExportJob(
+            @RequestParam(required = false) String ruleType,
+            @RequestParam(required = false) String mdState,
+            @RequestParam(required = false) String shipToState,
+            @RequestParam(required = false) String channel) {
+        RuleExportJob job = exportService.submit(ruleType, mdState, shipToState, channel);
+        URI location = ServletUriComponentsBuilder.fromCurrentRequest().path("/{id}").buildAndExpand(job.getId()).toUri();
+        return ResponseEntity.accepted().location(location).body(job);
+    }
+
+    @GetMapping("/extract/jobs/{id}")
+    public ResponseEntity<RuleExportJob> getExportJob(@PathVariable String id) {
+        return exportService.getJob(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Downloads the file of a completed export job. Range requests are supported, so an interrupted
+     * download can be resumed.
+     */
+    @GetMapping("/extract/jobs/{id}/file")
+    @Workload(WorkloadClass.EXPORT)
+    public ResponseEntity<Resource> downloadExport(@PathVariable String id) {
+        RuleExportJob job = exportService.getJob(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Export job not found"));
+        Path file = exportService.getFile(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.CONFLICT,
+                        "Export job is " + job.getStatus().name().toLowerCase()));
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("text/csv"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=regulatory_rules.csv")
+                .eTag(job.getId())
+                .lastModified(job.getCompletedAt())
+                .body(new FileSystemResource(file));
+    }
+
+    /**
+     * Flags a saved rule that contradicts other rules; the write itself still succeeds. The header holds
+     * the number of conflicting rules, listed at {@code /rules/{id}/conflicts}.
+     */
+    private HttpHeaders conflictHeaders(RegulatoryRule rule) {
+        HttpHeaders headers = new HttpHeaders();
+        int conflicts = conflictAnalyzer.findConflicts(rule).size();
+        if (conflicts > 0) {
+            headers.set("X-Rule-Conflicts", String.valueOf(conflicts));
         }
+        return headers;
     }
 
     @GetMapping("/user/access")
@@ -145,4 +388,61 @@ public class RegulatoryRulesController {
             "permissions", List.of("create", "edit", "export")
         ));
     }
+
+    /**
+     * Reads the Accept-Encoding tokens and their q-values: gzip is used when it, or failing that {@code *},
+     * is listed with a q-value above zero. {@code gzip;q=0} refuses it.
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Double gzipQuality = null;
+        Double wildcardQuality = null;
+        for (String token : acceptEncoding.split(",")) {
+            String[] parts = token.split(";");
+            String coding = parts[0].trim().toLowerCase();
+            double quality = 1.0;
+            for (int i = 1; i < parts.length; i++) {
+                String param = parts[i].trim().toLowerCase();
+                if (param.startsWith("q=")) {
+                    try {
+                        quality = Double.parseDouble(param.substring(2).trim());
+                    } catch (NumberFormatException e) {
+                        quality = 0;
+                    }
+                }
+            }
+            if (coding.equals("gzip") || coding.equals("x-gzip")) {
+                gzipQuality = quality;
+            } else if (coding.equals("*")) {
+                wildcardQuality = quality;
+            }
+        }
+        return gzipQuality != null ? gzipQuality > 0 : wildcardQuality != null && wildcardQuality > 0;
+    }
+
+    private static class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        long getCount() {
+            return count;
+        }
+    }
 }
@@ -0,0 +1,20 @@
+package com.regulatory.exception;
+
+import com.regulatory.config.WorkloadClass;
+import lombok.Getter;
+
+/**
+ * Thrown when a workload class is at its concurrency limit; answered with 503 and Retry-After.
+ */
+@Getter
+public class WorkloadRejectedException extends RuntimeException {
+
+    private final WorkloadClass workloadClass;
+    private final long retryAfterSeconds;
+
+    public WorkloadRejectedException(WorkloadClass workloadClass, long retryAfterSeconds) {
+        super("Too many " + workloadClass.name().toLowerCase() + " requests; retry later");
+        this.workloadClass = workloadClass;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
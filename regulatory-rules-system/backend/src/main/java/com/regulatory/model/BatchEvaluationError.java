@@ -0,0 +1,16 @@
+package com.regulatory.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchEvaluationError {
+    private long record;
+
+    private List<String> messages;
+}
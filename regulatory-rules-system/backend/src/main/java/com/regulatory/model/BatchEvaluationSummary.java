@@ -0,0 +1,14 @@
+package com.regulatory.model;
+
+import lombok.Data;
+
+@Data
+public class BatchEvaluationSummary {
+    private long records;
+
+    private long errors;
+
+    private long elapsedMillis;
+
+    private double recordsPerSecond;
+}
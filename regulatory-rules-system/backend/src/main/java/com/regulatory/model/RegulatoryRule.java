@@ -2,6 +2,7 @@ package com.regulatory.model;
 
 import lombok.Data;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.mongodb.core.mapping.Document;
 import javax.validation.constraints.*;
 
@@ -60,4 +61,12 @@ public class RegulatoryRule {
 
     @NotBlank(message = "Sequence number is required")
     private String sequenceNumber;
+
+    @Version
+    private Long version;
+
+    /**
+     * Position of the rule's latest insert or update in the change feed; assigned by the server.
+     */
+    private Long changeSeq;
 }
@@ -0,0 +1,24 @@
+package com.regulatory.model;
+
+import lombok.Data;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Partial update applied to many rules. The rules are selected either by id with the version the
+ * client last saw, or by the listing filters (ruleType, mdState, shipToState, channel), in which case
+ * the versions are read at the time of the update.
+ */
+@Data
+public class RuleBulkUpdateRequest {
+    @Valid
+    private List<RuleVersionRef> rules;
+
+    private Map<String, String> filter;
+
+    @NotEmpty(message = "At least one field to set is required")
+    private Map<String, Object> set;
+}
@@ -0,0 +1,15 @@
+package com.regulatory.model;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class RuleBulkUpdateResult {
+    private int requested;
+
+    private int updated;
+
+    private List<RuleUpdateOutcome> results = new ArrayList<>();
+}
@@ -0,0 +1,16 @@
+package com.regulatory.model;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class RuleChanges {
+    private List<RegulatoryRule> content;
+
+    private int size;
+
+    private boolean hasMore;
+
+    private String nextToken;
+}
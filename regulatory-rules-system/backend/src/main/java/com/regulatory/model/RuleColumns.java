@@ -0,0 +1,49 @@
+package com.regulatory.model;
+
+import lombok.Data;
+import org.springframework.data.domain.Page;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A page of rules in columnar form: the field names once, then one array of values per field, each
+ * holding the values of all rules on the page in order.
+ */
+@Data
+public class RuleColumns {
+    private List<String> fields;
+
+    private List<List<Object>> columns;
+
+    private int number;
+
+    private int size;
+
+    private int numberOfElements;
+
+    private long totalElements;
+
+    private int totalPages;
+
+    public static RuleColumns of(List<String> fields, Page<Object[]> page) {
+        List<List<Object>> columns = new ArrayList<>(fields.size());
+        for (int i = 0; i < fields.size(); i++) {
+            List<Object> column = new ArrayList<>(page.getNumberOfElements());
+            for (Object[] values : page.getContent()) {
+                column.add(values[i]);
+            }
+            columns.add(column);
+        }
+
+        RuleColumns result = new RuleColumns();
+        result.setFields(fields);
+        result.setColumns(columns);
+        result.setNumber(page.getNumber());
+        result.setSize(page.getSize());
+        result.setNumberOfElements(page.getNumberOfElements());
+        result.setTotalElements(page.getTotalElements());
+        result.setTotalPages(page.getTotalPages());
+        return result;
+    }
+}
@@ -0,0 +1,27 @@
+package com.regulatory.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Two rules that can apply to the same request but set different values for a limit. {@code limits}
+ * maps each contradicting field to the rule's value and the conflicting rule's value, in that order.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RuleConflict {
+    private String ruleId;
+
+    private String sequenceNumber;
+
+    private String conflictingRuleId;
+
+    private String conflictingSequenceNumber;
+
+    private Map<String, List<Integer>> limits;
+}
@@ -0,0 +1,17 @@
+package com.regulatory.model;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class RuleConflictReport {
+    private long rulesScanned;
+
+    private long conflictCount;
+
+    private List<RuleConflict> conflicts = new ArrayList<>();
+
+    private boolean conflictsTruncated;
+}
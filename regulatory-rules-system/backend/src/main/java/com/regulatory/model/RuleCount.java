@@ -0,0 +1,10 @@
+package com.regulatory.model;
+
+import lombok.Data;
+
+@Data
+public class RuleCount {
+    private long count;
+
+    private boolean estimated;
+}
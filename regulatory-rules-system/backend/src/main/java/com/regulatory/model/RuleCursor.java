@@ -0,0 +1,59 @@
+package com.regulatory.model;
+
+import lombok.Value;
+import org.springframework.data.domain.Sort;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Continuation token for keyset pagination: the sort key and id of the last rule on a page.
+ * The encoded form is opaque to clients.
+ */
+@Value
+public class RuleCursor {
+
+    private static final String SEPARATOR = "\u0000";
+
+    String sortField;
+    Sort.Direction direction;
+    Object value;
+    String id;
+
+    public String encode() {
+        String type = value == null ? "n" : value instanceof Integer ? "i" : value instanceof Long ? "l" : "s";
+        String raw = String.join(SEPARATOR, sortField, direction.name(), type,
+                value == null ? "" : value.toString(), id);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static RuleCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split(SEPARATOR, -1);
+            if (parts.length != 5) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            Object value;
+            switch (parts[2]) {
+                case "n":
+                    value = null;
+                    break;
+                case "i":
+                    value = Integer.valueOf(parts[3]);
+                    break;
+                case "l":
+                    value = Long.valueOf(parts[3]);
+                    break;
+                case "s":
+                    value = parts[3];
+                    break;
+                default:
+                    throw new IllegalArgumentException("Invalid cursor");
+            }
+            return new RuleCursor(parts[0], Sort.Direction.valueOf(parts[1]), value, parts[4]);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
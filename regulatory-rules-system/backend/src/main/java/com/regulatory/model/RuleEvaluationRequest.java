@@ -0,0 +1,31 @@
+package com.regulatory.model;
+
+import lombok.Data;
+
+import javax.validation.constraints.Min;
+
+@Data
+public class RuleEvaluationRequest {
+    private String ruleType;
+
+    private String mdState;
+
+    private String shipToState;
+
+    private String channel;
+
+    private String zipCode;
+
+    private String regCatCode;
+
+    private String drugSchedule;
+
+    @Min(value = 0, message = "Days supply must be non-negative")
+    private Integer daysSupply;
+
+    @Min(value = 0, message = "Quantity must be non-negative")
+    private Integer quantity;
+
+    @Min(value = 0, message = "Refill number must be non-negative")
+    private Integer refillNumber;
+}
@@ -0,0 +1,25 @@
+package com.regulatory.model;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class RuleEvaluationResult {
+    private List<String> matchedRuleIds = new ArrayList<>();
+
+    private List<String> matchedSequenceNumbers = new ArrayList<>();
+
+    private Integer maxDaysSupply;
+
+    private Integer maxQuantity;
+
+    private Integer maxRefill;
+
+    private Integer maxDaysAllowedToExpiryDate;
+
+    private boolean allowed = true;
+
+    private List<String> violations = new ArrayList<>();
+}
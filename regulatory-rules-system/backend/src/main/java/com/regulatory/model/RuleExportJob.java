@@ -0,0 +1,41 @@
+package com.regulatory.model;
+
+import lombok.Data;
+
+import java.time.Instant;
+
+@Data
+public class RuleExportJob {
+
+    public enum Status {
+        QUEUED, RUNNING, COMPLETED, FAILED
+    }
+
+    private String id;
+
+    private Status status;
+
+    private String ruleType;
+
+    private String mdState;
+
+    private String shipToState;
+
+    private String channel;
+
+    private int ranges;
+
+    private int completedRanges;
+
+    private long rowCount;
+
+    private long sizeBytes;
+
+    private String error;
+
+    private Instant createdAt;
+
+    private Instant completedAt;
+
+    private Instant expiresAt;
+}
@@ -0,0 +1,19 @@
+package com.regulatory.model;
+
+import lombok.Data;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Rule counts per filter value. The counts for a facet apply the other selected filters but not the
+ * facet's own, so they show how many rules each alternative value would match.
+ */
+@Data
+public class RuleFacets {
+    /** Rules matching every selected filter. */
+    private long total;
+
+    /** Facet field to (value, count), values in ascending order. */
+    private Map<String, Map<String, Long>> facets = new LinkedHashMap<>();
+}
@@ -0,0 +1,18 @@
+package com.regulatory.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RuleImportError {
+    private long row;
+
+    private String sequenceNumber;
+
+    private List<String> messages;
+}
@@ -0,0 +1,21 @@
+package com.regulatory.model;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class RuleImportResult {
+    private boolean dryRun;
+
+    private long totalRows;
+
+    private long importedRows;
+
+    private long failedRows;
+
+    private List<RuleImportError> errors = new ArrayList<>();
+
+    private boolean errorsTruncated;
+}
@@ -0,0 +1,22 @@
+package com.regulatory.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A rule found by text search, with the field and value that matched and whether the value equals,
+ * starts with or contains the query ({@code exact}, {@code prefix} or {@code substring}).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RuleSearchHit {
+    private RegulatoryRule rule;
+
+    private String field;
+
+    private String value;
+
+    private String match;
+}
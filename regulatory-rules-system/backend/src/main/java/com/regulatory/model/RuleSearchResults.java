@@ -0,0 +1,20 @@
+package com.regulatory.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RuleSearchResults {
+    private List<RuleSearchHit> content;
+
+    private int number;
+
+    private int size;
+
+    private long totalElements;
+}
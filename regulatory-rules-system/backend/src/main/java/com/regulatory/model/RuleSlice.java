@@ -0,0 +1,16 @@
+package com.regulatory.model;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class RuleSlice {
+    private List<RegulatoryRule> content;
+
+    private int size;
+
+    private boolean hasNext;
+
+    private String nextCursor;
+}
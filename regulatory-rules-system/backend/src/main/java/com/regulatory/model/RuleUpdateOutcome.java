@@ -0,0 +1,23 @@
+package com.regulatory.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RuleUpdateOutcome {
+    public enum Status {
+        UPDATED, CONFLICT, NOT_FOUND, INVALID
+    }
+
+    private String id;
+
+    private Status status;
+
+    /** The version after the update, or the current version when the update was not applied. */
+    private Long version;
+
+    private String message;
+}
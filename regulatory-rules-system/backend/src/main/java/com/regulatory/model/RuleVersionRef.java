@@ -0,0 +1,19 @@
+package com.regulatory.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotNull;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RuleVersionRef {
+    @NotBlank(message = "Rule id is required")
+    private String id;
+
+    @NotNull(message = "Version is required")
+    private Long version;
+}
@@ -0,0 +1,590 @@
+package com.regulatory.repository;
+
+import com.regulatory.model.RegulatoryRule;
+import com.regulatory.model.RuleCursor;
+import com.regulatory.model.RuleFacets;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Column-oriented copy of the rules collection that can serve the filter reads instead of Mongo
+ * ({@code rules.read-backend=columnar}). Text fields are dictionary-encoded into int codes, numeric
+ * fields are kept in primitive arrays with a sentinel for null, and the four filter fields have one
+ * bitmap per value, so a filtered listing is a handful of bitmap intersections.
+ *
+ * <p>Rows of removed rules are reused by later inserts. Sorted row orders are cached per sort and
+ * dropped on every write.
+ */
+@Component
+@ConditionalOnProperty(name = "rules.read-backend", havingValue = "columnar")
+public class ColumnarRuleStore {
+
+    private static final int NULL_INT = Integer.MIN_VALUE;
+    private static final long NULL_LONG = Long.MIN_VALUE;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    /** Up to this many matches are sorted directly; larger results walk the cached order of all rows. */
+    private static final int DIRECT_SORT_LIMIT = 10_000;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, DictionaryColumn> textColumns = new LinkedHashMap<>();
+    private final Map<String, IntColumn> intColumns = new LinkedHashMap<>();
+    private final List<DictionaryColumn> filterColumns;
+
+    private String[] ids = new String[INITIAL_CAPACITY];
+    private String[] sequenceNumbers = new String[INITIAL_CAPACITY];
+    private long[] versions = new long[INITIAL_CAPACITY];
+    private long[] changeSeqs = new long[INITIAL_CAPACITY];
+    private int capacity = INITIAL_CAPACITY;
+    private int rowLimit;
+
+    private final Map<String, Integer> rowById = new HashMap<>();
+    private final BitSet live = new BitSet();
+    private final Deque<Integer> freeRows = new ArrayDeque<>();
+    private final Map<Sort, int[]> orderCache = new ConcurrentHashMap<>();
+
+    private volatile boolean loaded;
+
+    public ColumnarRuleStore() {
+        addText("ruleType", RegulatoryRule::getRuleType, RegulatoryRule::setRuleType, true);
+        addText("mdState", RegulatoryRule::getMdState, RegulatoryRule::setMdState, true);
+        addText("shipToState", RegulatoryRule::getShipToState, RegulatoryRule::setShipToState, true);
+        addText("zipCode", RegulatoryRule::getZipCode, RegulatoryRule::setZipCode, false);
+        addText("channel", RegulatoryRule::getChannel, RegulatoryRule::setChannel, true);
+        addText("regCatCode", RegulatoryRule::getRegCatCode, RegulatoryRule::setRegCatCode, false);
+        addText("drugSchedule", RegulatoryRule::getDrugSchedule, RegulatoryRule::setDrugSchedule, false);
+        addText("userLocation", RegulatoryRule::getUserLocation, RegulatoryRule::setUserLocation, false);
+        addText("dispensingLocation", RegulatoryRule::getDispensingLocation,
+                RegulatoryRule::setDispensingLocation, false);
+        addText("protocol", RegulatoryRule::getProtocol, RegulatoryRule::setProtocol, false);
+        addInt("refillNumber", RegulatoryRule::getRefillNumber, RegulatoryRule::setRefillNumber);
+        addInt("quantity", RegulatoryRule::getQuantity, RegulatoryRule::setQuantity);
+        addInt("daysSupply", RegulatoryRule::getDaysSupply, RegulatoryRule::setDaysSupply);
+        addInt("daysAgo", RegulatoryRule::getDaysAgo, RegulatoryRule::setDaysAgo);
+        addInt("maxDaysSupply", RegulatoryRule::getMaxDaysSupply, RegulatoryRule::setMaxDaysSupply);
+        addInt("maxQuantity", RegulatoryRule::getMaxQuantity, RegulatoryRule::setMaxQuantity);
+        addInt("maxRefill", RegulatoryRule::getMaxRefill, RegulatoryRule::setMaxRefill);
+        addInt("maxDaysAllowedToExpiryDate", RegulatoryRule::getMaxDaysAllowedToExpiryDate,
+                RegulatoryRule::setMaxDaysAllowedToExpiryDate);
+        filterColumns = List.of(textColumns.get("ruleType"), textColumns.get("mdState"),
+                textColumns.get("shipToState"), textColumns.get("channel"));
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Replaces the contents with the given rules. The write lock is held while the rules are consumed,
+     * so changes applied concurrently are not lost under the reload.
+     */
+    public void load(Iterator<RegulatoryRule> rules) {
+        lock.writeLock().lock();
+        try {
+            rowById.clear();
+            live.clear();
+            freeRows.clear();
+            rowLimit = 0;
+            textColumns.values().forEach(DictionaryColumn::clear);
+            while (rules.hasNext()) {
+                upsert(rules.next());
+            }
+            orderCache.clear();
+            loaded = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void apply(Collection<RegulatoryRule> changed, Collection<String> removedIds) {
+        lock.writeLock().lock();
+        try {
+            changed.forEach(this::upsert);
+            removedIds.forEach(this::remove);
+            orderCache.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return rowById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Page<RegulatoryRule> findByFilters(String ruleType, String mdState, String shipToState, String channel,
+                                              Pageable pageable) {
+        lock.readLock().lock();
+        try {
+            BitSet matches = matching(ruleType, mdState, shipToState, channel);
+            int total = matches.cardinality();
+            long offset = pageable.isPaged() ? pageable.getOffset() : 0;
+            int limit = pageable.isPaged() ? pageable.getPageSize() : total;
+            int[] rows = select(matches, total, sortWithId(pageable.getSort()), offset, limit);
+            return new PageImpl<>(materialize(rows), pageable, total);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Page<Object[]> findValuesByFilters(String ruleType, String mdState, String shipToState, String channel,
+                                              Pageable pageable, List<String> fields) {
+        lock.readLock().lock();
+        try {
+            BitSet matches = matching(ruleType, mdState, shipToState, channel);
+            int total = matches.cardinality();
+            long offset = pageable.isPaged() ? pageable.getOffset() : 0;
+            int limit = pageable.isPaged() ? pageable.getPageSize() : total;
+            int[] rows = select(matches, total, sortWithId(pageable.getSort()), offset, limit);
+            List<Function<Integer, Object>> extractors = fields.stream()
+                    .map(this::extractor)
+                    .collect(Collectors.toList());
+            List<Object[]> content = new ArrayList<>(rows.length);
+            for (int row : rows) {
+                Object[] values = new Object[extractors.size()];
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = extractors.get(i).apply(row);
+                }
+                content.add(values);
+            }
+            return new PageImpl<>(content, pageable, total);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<RegulatoryRule> findByFiltersAfter(String ruleType, String mdState, String shipToState,
+                                                   String channel, String sortField, Sort.Direction direction,
+                                                   RuleCursor after, int limit) {
+        lock.readLock().lock();
+        try {
+            BitSet matches = matching(ruleType, mdState, shipToState, channel);
+            Sort sort = Sort.by(direction, sortField, "id");
+            int[] order = order(matches, matches.cardinality(), sort);
+            int start = 0;
+            if (after != null) {
+                RowComparator comparator = comparator(sort);
+                // First position in the order that sorts after the cursor
+                int low = 0;
+                int high = order.length;
+                while (low < high) {
+                    int mid = (low + high) >>> 1;
+                    if (comparator.compareToKey(order[mid], after.getValue(), after.getId()) <= 0) {
+                        low = mid + 1;
+                    } else {
+                        high = mid;
+                    }
+                }
+                start = low;
+            }
+            return materialize(walk(order, matches, start, 0, limit));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long countByFilters(String ruleType, String mdState, String shipToState, String channel) {
+        lock.readLock().lock();
+        try {
+            return matching(ruleType, mdState, shipToState, channel).cardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Streams the matching rules in sort order. The order is fixed when the stream is created; each rule is
+     * read when the stream reaches it, so rules changed in the meantime are returned in their new state.
+     */
+    public Stream<RegulatoryRule> streamByFilters(String ruleType, String mdState, String shipToState,
+                                                  String channel, Sort sort) {
+        int[] rows;
+        lock.readLock().lock();
+        try {
+            BitSet matches = matching(ruleType, mdState, shipToState, channel);
+            int total = matches.cardinality();
+            rows = select(matches, total, sortWithId(sort), 0, total);
+        } finally {
+            lock.readLock().unlock();
+        }
+        return IntStream.of(rows).mapToObj(this::readRow).filter(Objects::nonNull);
+    }
+
+    public RuleFacets facetCounts(String ruleType, String mdState, String shipToState, String channel) {
+        String[] selected = {ruleType, mdState, shipToState, channel};
+        lock.readLock().lock();
+        try {
+            RuleFacets facets = new RuleFacets();
+            facets.setTotal(matching(selected, -1).cardinality());
+            for (int i = 0; i < filterColumns.size(); i++) {
+                DictionaryColumn column = filterColumns.get(i);
+                BitSet base = matching(selected, i);
+                int[] counts = new int[column.values.size()];
+                for (int row = base.nextSetBit(0); row >= 0; row = base.nextSetBit(row + 1)) {
+                    counts[column.codes[row]]++;
+                }
+                Map<String, Long> byValue = new TreeMap<>();
+                for (int code = 1; code < counts.length; code++) {
+                    if (counts[code] > 0) {
+                        byValue.put(column.values.get(code), (long) counts[code]);
+                    }
+                }
+                facets.getFacets().put(column.field, new LinkedHashMap<>(byValue));
+            }
+            return facets;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private BitSet matching(String ruleType, String mdState, String shipToState, String channel) {
+        return matching(new String[] {ruleType, mdState, shipToState, channel}, -1);
+    }
+
+    /**
+     * Intersects the bitmaps of the selected filter values, skipping the filter at {@code excluded}.
+     */
+    private BitSet matching(String[] selected, int excluded) {
+        BitSet result = (BitSet) live.clone();
+        for (int i = 0; i < selected.length; i++) {
+            String value = selected[i];
+            if (i == excluded || value == null || value.isEmpty()) {
+                continue;
+            }
+            DictionaryColumn column = filterColumns.get(i);
+            Integer code = column.codeByValue.get(value);
+            if (code == null) {
+                result.clear();
+                return result;
+            }
+            result.and(column.bitmaps.get(code));
+        }
+        return result;
+    }
+
+    /**
+     * Returns up to {@code limit} matching rows in sort order, skipping the first {@code offset}.
+     */
+    private int[] select(BitSet matches, int total, Sort sort, long offset, int limit) {
+        if (sort.isUnsorted()) {
+            int[] rows = new int[(int) Math.max(0, Math.min(limit, total - offset))];
+            int skipped = 0;
+            int count = 0;
+            for (int row = matches.nextSetBit(0); row >= 0 && count < rows.length; row = matches.nextSetBit(row + 1)) {
+                if (skipped++ >= offset) {
+                    rows[count++] = row;
+                }
+            }
+            return rows;
+        }
+        return walk(order(matches, total, sort), matches, 0, offset, limit);
+    }
+
+    private int[] walk(int[] order, BitSet matches, int start, long offset, int limit) {
+        int[] rows = new int[Math.max(0, Math.min(limit, order.length - start))];
+        long skipped = 0;
+        int count = 0;
+        for (int i = start; i < order.length && count < rows.length; i++) {
+            int row = order[i];
+            if (matches.get(row) && skipped++ >= offset) {
+                rows[count++] = row;
+            }
+        }
+        return Arrays.copyOf(rows, count);
+    }
+
+    /**
+     * Returns rows in sort order: just the matches when there are few of them, otherwise the cached
+     * order of all rows, which the caller filters against the matches.
+     */
+    private int[] order(BitSet matches, int total, Sort sort) {
+        if (total <= DIRECT_SORT_LIMIT) {
+            return sortRows(matches.stream().toArray(), sort);
+        }
+        return orderCache.computeIfAbsent(sort, key -> sortRows(live.stream().toArray(), key));
+    }
+
+    private int[] sortRows(int[] rows, Sort sort) {
+        RowComparator comparator = comparator(sort);
+        Integer[] boxed = IntStream.of(rows).boxed().toArray(Integer[]::new);
+        Arrays.sort(boxed, comparator::compare);
+        return Arrays.stream(boxed).mapToInt(Integer::intValue).toArray();
+    }
+
+    private Sort sortWithId(Sort sort) {
+        if (sort.isUnsorted() || sort.getOrderFor("id") != null) {
+            return sort;
+        }
+        return sort.and(Sort.by("id"));
+    }
+
+    private RowComparator comparator(Sort sort) {
+        List<Sort.Order> orders = sort.toList();
+        List<Function<Integer, Object>> extractors = new ArrayList<>(orders.size());
+        for (Sort.Order order : orders) {
+            extractors.add(extractor(order.getProperty()));
+        }
+        return new RowComparator() {
+            @Override
+            public int compare(int left, int right) {
+                for (int i = 0; i < orders.size(); i++) {
+                    int result = direct(orders.get(i), compareValues(extractors.get(i).apply(left),
+                            extractors.get(i).apply(right)));
+                    if (result != 0) {
+                        return result;
+                    }
+                }
+                return 0;
+            }
+
+            @Override
+            public int compareToKey(int row, Object value, String id) {
+                // Keyset orders are always (sortField, id)
+                int result = direct(orders.get(0), compareValues(extractors.get(0).apply(row), value));
+                return result != 0 ? result : direct(orders.get(1), compareValues(ids[row], id));
+            }
+        };
+    }
+
+    private static int direct(Sort.Order order, int comparison) {
+        return order.isAscending() ? comparison : -comparison;
+    }
+
+    /**
+     * Orders values the way Mongo does for these fields: null before everything else.
+     */
+    private static int compareValues(Object left, Object right) {
+        if (left == null || right == null) {
+            return left == null ? (right == null ? 0 : -1) : 1;
+        }
+        if (left instanceof Number && right instanceof Number) {
+            return Long.compare(((Number) left).longValue(), ((Number) right).longValue());
+        }
+        return left.toString().compareTo(right.toString());
+    }
+
+    private Function<Integer, Object> extractor(String field) {
+        if ("id".equals(field)) {
+            return row -> ids[row];
+        }
+        if ("sequenceNumber".equals(field)) {
+            return row -> sequenceNumbers[row];
+        }
+        if ("version".equals(field)) {
+            return row -> versions[row] == NULL_LONG ? null : versions[row];
+        }
+        if ("changeSeq".equals(field)) {
+            return row -> changeSeqs[row] == NULL_LONG ? null : changeSeqs[row];
+        }
+        DictionaryColumn text = textColumns.get(field);
+        if (text != null) {
+            return row -> text.values.get(text.codes[row]);
+        }
+        IntColumn number = intColumns.get(field);
+        if (number != null) {
+            return row -> number.values[row] == NULL_INT ? null : number.values[row];
+        }
+        // Like Mongo, sorting on a field the rules do not have leaves the order to the remaining keys
+        return row -> null;
+    }
+
+    private List<RegulatoryRule> materialize(int[] rows) {
+        List<RegulatoryRule> rules = new ArrayList<>(rows.length);
+        for (int row : rows) {
+            rules.add(toRule(row));
+        }
+        return rules;
+    }
+
+    private RegulatoryRule readRow(int row) {
+        lock.readLock().lock();
+        try {
+            return live.get(row) ? toRule(row) : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private RegulatoryRule toRule(int row) {
+        RegulatoryRule rule = new RegulatoryRule();
+        rule.setId(ids[row]);
+        rule.setSequenceNumber(sequenceNumbers[row]);
+        rule.setVersion(versions[row] == NULL_LONG ? null : versions[row]);
+        rule.setChangeSeq(changeSeqs[row] == NULL_LONG ? null : changeSeqs[row]);
+        for (DictionaryColumn column : textColumns.values()) {
+            column.setter.accept(rule, column.values.get(column.codes[row]));
+        }
+        for (IntColumn column : intColumns.values()) {
+            int value = column.values[row];
+            column.setter.accept(rule, value == NULL_INT ? null : value);
+        }
+        return rule;
+    }
+
+    private void upsert(RegulatoryRule rule) {
+        Integer existing = rowById.get(rule.getId());
+        int row;
+        if (existing != null) {
+            row = existing;
+            filterColumns.forEach(column -> column.unindex(row));
+        } else {
+            row = allocateRow();
+            rowById.put(rule.getId(), row);
+            live.set(row);
+        }
+        ids[row] = rule.getId();
+        sequenceNumbers[row] = rule.getSequenceNumber();
+        versions[row] = rule.getVersion() == null ? NULL_LONG : rule.getVersion();
+        changeSeqs[row] = rule.getChangeSeq() == null ? NULL_LONG : rule.getChangeSeq();
+        for (DictionaryColumn column : textColumns.values()) {
+            column.set(row, column.getter.apply(rule));
+        }
+        for (IntColumn column : intColumns.values()) {
+            Integer value = column.getter.apply(rule);
+            column.values[row] = value == null ? NULL_INT : value;
+        }
+    }
+
+    private void remove(String id) {
+        Integer row = rowById.remove(id);
+        if (row == null) {
+            return;
+        }
+        filterColumns.forEach(column -> column.unindex(row));
+        live.clear(row);
+        ids[row] = null;
+        sequenceNumbers[row] = null;
+        freeRows.push(row);
+    }
+
+    private int allocateRow() {
+        if (!freeRows.isEmpty()) {
+            return freeRows.pop();
+        }
+        if (rowLimit == capacity) {
+            capacity *= 2;
+            ids = Arrays.copyOf(ids, capacity);
+            sequenceNumbers = Arrays.copyOf(sequenceNumbers, capacity);
+            versions = Arrays.copyOf(versions, capacity);
+            changeSeqs = Arrays.copyOf(changeSeqs, capacity);
+            textColumns.values().forEach(column -> column.codes = Arrays.copyOf(column.codes, capacity));
+            intColumns.values().forEach(column -> column.values = Arrays.copyOf(column.values, capacity));
+        }
+        return rowLimit++;
+    }
+
+    private void addText(String field, Function<RegulatoryRule, String> getter,
+                         BiConsumer<RegulatoryRule, String> setter, boolean indexed) {
+        textColumns.put(field, new DictionaryColumn(field, getter, setter, indexed, capacity));
+    }
+
+    private void addInt(String field, Function<RegulatoryRule, Integer> getter,
+                        BiConsumer<RegulatoryRule, Integer> setter) {
+        intColumns.put(field, new IntColumn(getter, setter, capacity));
+    }
+
+    private interface RowComparator {
+        int compare(int left, int right);
+
+        int compareToKey(int row, Object value, String id);
+    }
+
+    /**
+     * Text column stored as codes into a dictionary of its distinct values. Code 0 stands for null.
+     * Filter columns also keep a bitmap of the rows holding each code.
+     */
+    private static final class DictionaryColumn {
+        private final String field;
+        private final Function<RegulatoryRule, String> getter;
+        private final BiConsumer<RegulatoryRule, String> setter;
+        private final boolean indexed;
+        private final List<String> values = new ArrayList<>();
+        private final Map<String, Integer> codeByValue = new HashMap<>();
+        private final List<BitSet> bitmaps = new ArrayList<>();
+        private int[] codes;
+
+        DictionaryColumn(String field, Function<RegulatoryRule, String> getter,
+                         BiConsumer<RegulatoryRule, String> setter, boolean indexed, int capacity) {
+            this.field = field;
+            this.getter = getter;
+            this.setter = setter;
+            this.indexed = indexed;
+            this.codes = new int[capacity];
+            clear();
+        }
+
+        void clear() {
+            values.clear();
+            codeByValue.clear();
+            bitmaps.clear();
+            values.add(null);
+            if (indexed) {
+                bitmaps.add(new BitSet());
+            }
+        }
+
+        void set(int row, String value) {
+            Integer code = value == null ? Integer.valueOf(0) : codeByValue.get(value);
+            if (code == null) {
+                code = values.size();
+                values.add(value);
+                codeByValue.put(value, code);
+                if (indexed) {
+                    bitmaps.add(new BitSet());
+                }
+            }
+            codes[row] = code;
+            if (indexed) {
+                bitmaps.get(code).set(row);
+            }
+        }
+
+        void unindex(int row) {
+            bitmaps.get(codes[row]).clear(row);
+        }
+    }
+
+    private static final class IntColumn {
+        private final Function<RegulatoryRule, Integer> getter;
+        private final BiConsumer<RegulatoryRule, Integer> setter;
+        private int[] values;
+
+        IntColumn(Function<RegulatoryRule, Integer> getter, BiConsumer<RegulatoryRule, Integer> setter,
+                  int capacity) {
+            this.getter = getter;
+            this.setter = setter;
+            this.values = new int[capacity];
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.regulatory.repository;
+
+import com.regulatory.model.RegulatoryRule;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+
+/**
+ * Non-blocking counterpart of {@link RegulatoryRulesRepository} on the reactive Mongo driver.
+ */
+public interface ReactiveRegulatoryRulesRepository extends ReactiveMongoRepository<RegulatoryRule, String>,
+        ReactiveRegulatoryRulesRepositoryCustom {
+}
@@ -0,0 +1,16 @@
+package com.regulatory.repository;
+
+import com.regulatory.model.RegulatoryRule;
+import org.springframework.data.domain.Sort;
+import reactor.core.publisher.Flux;
+
+public interface ReactiveRegulatoryRulesRepositoryCustom {
+
+    /**
+     * Emits the rules matching the filters in sort order, skipping {@code skip} and emitting at most
+     * {@code limit} (0 for no limit). Rules are fetched from the cursor in batches as the subscriber
+     * requests them.
+     */
+    Flux<RegulatoryRule> findByFilters(String ruleType, String mdState, String shipToState, String channel,
+                                       Sort sort, long skip, int limit, int batchSize);
+}
@@ -0,0 +1,33 @@
+package com.regulatory.repository;
+
+import com.regulatory.config.MongoReadRouting;
+import com.regulatory.model.RegulatoryRule;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import reactor.core.publisher.Flux;
+
+public class ReactiveRegulatoryRulesRepositoryCustomImpl implements ReactiveRegulatoryRulesRepositoryCustom {
+
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final ReactiveMongoTemplate routedListingTemplate;
+    private final MongoReadRouting readRouting;
+
+    public ReactiveRegulatoryRulesRepositoryCustomImpl(ReactiveMongoTemplate mongoTemplate, MongoReadRouting readRouting) {
+        this.mongoTemplate = mongoTemplate;
+        this.routedListingTemplate = MongoReadRouting.routed(mongoTemplate, readRouting.getListing());
+        this.readRouting = readRouting;
+    }
+
+    @Override
+    public Flux<RegulatoryRule> findByFilters(String ruleType, String mdState, String shipToState, String channel,
+                                              Sort sort, long skip, int limit, int batchSize) {
+        Query query = RuleFilterQueries.filterQuery(ruleType, mdState, shipToState, channel)
+                .with(sort)
+                .skip(skip)
+                .limit(limit)
+                .cursorBatchSize(batchSize);
+        ReactiveMongoTemplate template = readRouting.isPrimaryRequired() ? mongoTemplate : routedListingTemplate;
+        return template.find(query, RegulatoryRule.class);
+    }
+}
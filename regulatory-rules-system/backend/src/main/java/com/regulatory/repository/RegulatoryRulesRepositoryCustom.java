@@ -0,0 +1,132 @@
+package com.regulatory.repository;
+
+import com.regulatory.model.RegulatoryRule;
+import com.regulatory.model.RuleCursor;
+import com.regulatory.model.RuleFacets;
+import com.regulatory.model.RuleVersionRef;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+public interface RegulatoryRulesRepositoryCustom {
+
+    /**
+     * Finds a page of rules, adding a predicate only for the filters that are present
+     * so that the query can be served by the compound indexes.
+     */
+    Page<RegulatoryRule> findByFilters(String ruleType, String mdState, String shipToState, String channel,
+                                       Pageable pageable);
+
+    /**
+     * Like {@link #findByFilters}, but reads only the given fields and returns each rule as an array of
+     * their values in the same order. The projection is applied by the query, so other fields are
+     * neither transferred nor mapped.
+     */
+    Page<Object[]> findValuesByFilters(String ruleType, String mdState, String shipToState, String channel,
+                                       Pageable pageable, List<String> fields);
+
+    /**
+     * Finds up to {@code limit} rules ordered by the sort field and id, starting after the cursor
+     * position. The cursor is turned into a range predicate, so the cost does not depend on how deep
+     * the page is.
+     */
+    List<RegulatoryRule> findByFiltersAfter(String ruleType, String mdState, String shipToState, String channel,
+                                            String sortField, Sort.Direction direction, RuleCursor after, int limit);
+
+    long countByFilters(String ruleType, String mdState, String shipToState, String channel);
+
+    long estimatedCount();
+
+    /**
+     * Counts the rules per ruleType, mdState, shipToState and channel value in one $facet aggregation.
+     * Each facet is counted under the selected filters except its own.
+     */
+    RuleFacets facetCounts(String ruleType, String mdState, String shipToState, String channel);
+
+    /**
+     * Streams the rules matching the given filters from a server-side cursor.
+     * The returned stream holds an open cursor and must be closed by the caller.
+     */
+    Stream<RegulatoryRule> streamByFilters(String ruleType, String mdState, String shipToState, String channel,
+                                           Sort sort, int batchSize);
+
+    /**
+     * Splits the rules matching the filters into about {@code parts} ranges of similar size and returns
+     * the sequence numbers where ranges after the first one start, ascending and without duplicates.
+     * Reads Mongo directly, one indexed lookup per boundary.
+     */
+    List<String> findSequenceNumberBoundaries(String ruleType, String mdState, String shipToState, String channel,
+                                              int parts);
+
+    /**
+     * Streams the rules matching the filters whose sequenceNumber is in [{@code from}, {@code to}), in
+     * (sequenceNumber, id) order. A null {@code from} also includes rules without a sequence number and a
+     * null {@code to} leaves the range open. The stream must be closed by the caller.
+     */
+    Stream<RegulatoryRule> streamBySequenceRange(String ruleType, String mdState, String shipToState, String channel,
+                                                 String from, String to, int batchSize);
+
+    /**
+     * Returns which of the given sequence numbers are already used, reading only the sequenceNumber field.
+     */
+    Set<String> findExistingSequenceNumbers(Collection<String> sequenceNumbers);
+
+    /**
+     * Inserts the rules in a single bulk write and returns the error message of every rule that could not
+     * be inserted, keyed by its position in the list. An ordered write stops at the first error.
+     */
+    Map<Integer, String> bulkInsert(List<RegulatoryRule> rules, boolean ordered);
+
+    /**
+     * Returns the id and current version of every rule matching the filters, reading only those two fields.
+     */
+    List<RuleVersionRef> findVersionsByFilters(String ruleType, String mdState, String shipToState, String channel);
+
+    /**
+     * Applies the update to each rule in a single unordered bulk write. A rule is only updated while it
+     * still has the given version and matches the guard (if any), and the update increments the version.
+     * Returns the number of rules that were modified.
+     */
+    int bulkUpdateVersioned(List<RuleVersionRef> targets, Update update, Criteria guard);
+
+    /**
+     * Reserves {@code count} consecutive change sequence numbers from the counter collection and returns
+     * the first one. Numbers are never handed out twice, but a failed write leaves a gap.
+     */
+    long reserveChangeSeqs(int count);
+
+    /**
+     * Reserves one change sequence number like {@link #reserveChangeSeqs} and records it as in flight
+     * until {@link #releaseChangeSeq} is called or the lease ends, whichever comes first.
+     */
+    long reserveTrackedChangeSeq(long leaseMillis);
+
+    void releaseChangeSeq(long changeSeq);
+
+    /**
+     * Returns the lowest change sequence number whose write is still in flight, or {@link Long#MAX_VALUE}
+     * if there is none. Reservations whose lease ended are ignored.
+     */
+    long oldestInFlightChangeSeq();
+
+    void removeExpiredChangeSeqReservations();
+
+    /**
+     * Returns the highest change sequence number reserved so far, or 0 if none was.
+     */
+    long currentChangeSeq();
+
+    /**
+     * Finds up to {@code limit} rules in (changeSeq, id) order that come after the cursor (or from the
+     * start when it is null) and whose changeSeq is at most {@code upTo}.
+     */
+    List<RegulatoryRule> findChangedAfter(RuleCursor after, long upTo, int limit);
+}
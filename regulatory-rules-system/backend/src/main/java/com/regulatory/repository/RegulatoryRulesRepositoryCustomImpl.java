@@ -0,0 +1,428 @@
+package com.regulatory.repository;
+
+import com.regulatory.config.HeavyWorkloadMongo;
+import com.regulatory.config.MongoIndexInitializer;
+import com.regulatory.config.MongoReadRouting;
+import com.regulatory.model.RegulatoryRule;
+import com.regulatory.model.RuleCursor;
+import com.regulatory.model.RuleFacets;
+import com.regulatory.model.RuleVersionRef;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.FacetOperation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.lang.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class RegulatoryRulesRepositoryCustomImpl implements RegulatoryRulesRepositoryCustom {
+
+    private static final List<String> FACET_FIELDS = List.of("ruleType", "mdState", "shipToState", "channel");
+    private static final String COUNTERS_COLLECTION = "counters";
+    private static final String CHANGE_SEQ_COUNTER = "ruleChangeSeq";
+    private static final String RESERVATIONS_COLLECTION = "changeSeqReservations";
+    private static final int DUPLICATE_KEY = 11000;
+
+    private final MongoTemplate mongoTemplate;
+    private final MongoTemplate heavyTemplate;
+    private final MongoTemplate routedListingTemplate;
+    private final MongoTemplate routedExportTemplate;
+    private final MongoReadRouting readRouting;
+    private final ColumnarRuleStore columnarStore;
+
+    public RegulatoryRulesRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+        this(mongoTemplate, null, null, null);
+    }
+
+    /**
+     * The columnar store is only present with {@code rules.read-backend=columnar}. Once loaded it serves
+     * the filter reads; writes and lookups that must see the database keep going to Mongo. Streams,
+     * imports and bulk updates use the heavy workload pool when there is one. Listing and export reads
+     * follow the {@link MongoReadRouting} read preferences, except shortly after a write; all other reads go
+     * to the primary.
+     */
+    @Autowired
+    public RegulatoryRulesRepositoryCustomImpl(MongoTemplate mongoTemplate, @Nullable ColumnarRuleStore columnarStore,
+                                               @Nullable HeavyWorkloadMongo heavyWorkloadMongo,
+                                               @Nullable MongoReadRouting readRouting) {
+        this.mongoTemplate = mongoTemplate;
+        this.heavyTemplate = heavyWorkloadMongo != null ? heavyWorkloadMongo.getTemplate() : mongoTemplate;
+        this.routedListingTemplate = readRouting != null
+                ? MongoReadRouting.routed(mongoTemplate, readRouting.getListing()) : mongoTemplate;
+        this.routedExportTemplate = readRouting != null
+                ? MongoReadRouting.routed(heavyTemplate, readRouting.getExport()) : heavyTemplate;
+        this.readRouting = readRouting;
+        this.columnarStore = columnarStore;
+    }
+
+    private MongoTemplate listingTemplate() {
+        return readRouting != null && readRouting.isPrimaryRequired() ? mongoTemplate : routedListingTemplate;
+    }
+
+    private MongoTemplate exportTemplate() {
+        return readRouting != null && readRouting.isPrimaryRequired() ? heavyTemplate : routedExportTemplate;
+    }
+
+    @Override
+    public Page<RegulatoryRule> findByFilters(String ruleType, String mdState, String shipToState, String channel,
+                                              Pageable pageable) {
+        ColumnarRuleStore store = columnarStore();
+        if (store != null) {
+            return store.findByFilters(ruleType, mdState, shipToState, channel, pageable);
+        }
+        Query query = buildFilterQuery(ruleType, mdState, shipToState, channel).with(pageable);
+        List<RegulatoryRule> content = listingTemplate().find(query, RegulatoryRule.class);
+        return PageableExecutionUtils.getPage(content, pageable,
+                () -> listingTemplate().count(Query.of(query).limit(-1).skip(-1), RegulatoryRule.class));
+    }
+
+    @Override
+    public Page<Object[]> findValuesByFilters(String ruleType, String mdState, String shipToState, String channel,
+                                              Pageable pageable, List<String> fields) {
+        ColumnarRuleStore store = columnarStore();
+        if (store != null) {
+            return store.findValuesByFilters(ruleType, mdState, shipToState, channel, pageable, fields);
+        }
+        Query query = buildFilterQuery(ruleType, mdState, shipToState, channel).with(pageable);
+        fields.forEach(query.fields()::include);
+        List<Object[]> content = listingTemplate().query(RegulatoryRule.class).as(Document.class).matching(query).all()
+                .stream()
+                .map(document -> {
+                    Object[] values = new Object[fields.size()];
+                    for (int i = 0; i < values.length; i++) {
+                        String field = fields.get(i);
+                        Object value = document.get("id".equals(field) ? "_id" : field);
+                        values[i] = value instanceof ObjectId ? ((ObjectId) value).toHexString() : value;
+                    }
+                    return values;
+                })
+                .collect(Collectors.toList());
+        return PageableExecutionUtils.getPage(content, pageable,
+                () -> listingTemplate().count(Query.of(query).limit(-1).skip(-1), RegulatoryRule.class));
+    }
+
+    @Override
+    public List<RegulatoryRule> findByFiltersAfter(String ruleType, String mdState, String shipToState, String channel,
+                                                   String sortField, Sort.Direction direction, RuleCursor after,
+                                                   int limit) {
+        ColumnarRuleStore store = columnarStore();
+        if (store != null) {
+            return store.findByFiltersAfter(ruleType, mdState, shipToState, channel, sortField, direction, after, limit);
+        }
+        Query query = buildFilterQuery(ruleType, mdState, shipToState, channel);
+        if (after != null) {
+            query.addCriteria(seekCriteria(sortField, direction, after));
+        }
+        query.with(Sort.by(direction, sortField, "id")).limit(limit);
+        return listingTemplate().find(query, RegulatoryRule.class);
+    }
+
+    @Override
+    public long countByFilters(String ruleType, String mdState, String shipToState, String channel) {
+        ColumnarRuleStore store = columnarStore();
+        if (store != null) {
+            return store.countByFilters(ruleType, mdState, shipToState, channel);
+        }
+        return listingTemplate().count(buildFilterQuery(ruleType, mdState, shipToState, channel), RegulatoryRule.class);
+    }
+
+    @Override
+    public long estimatedCount() {
+        ColumnarRuleStore store = columnarStore();
+        if (store != null) {
+            return store.size();
+        }
+        return listingTemplate().estimatedCount(RegulatoryRule.class);
+    }
+
+    @Override
+    public RuleFacets facetCounts(String ruleType, String mdState, String shipToState, String channel) {
+        ColumnarRuleStore store = columnarStore();
+        if (store != null) {
+            return store.facetCounts(ruleType, mdState, shipToState, channel);
+        }
+        Map<String, String> selected = new LinkedHashMap<>();
+        putIfPresent(selected, "ruleType", ruleType);
+        putIfPresent(selected, "mdState", mdState);
+        putIfPresent(selected, "shipToState", shipToState);
+        putIfPresent(selected, "channel", channel);
+
+        List<AggregationOperation> operations = new ArrayList<>();
+        if (selected.size() > 1) {
+            // Only rules that miss at most one selected filter can count towards any facet. Each branch
+            // is a conjunction of filters, so it can be served by the compound indexes.
+            Criteria[] branches = selected.keySet().stream()
+                    .map(field -> filterCriteria(selected, field))
+                    .toArray(Criteria[]::new);
+            operations.add(Aggregation.match(new Criteria().orOperator(branches)));
+        }
+
+        FacetOperation facet = Aggregation.facet(Aggregation.match(filterCriteria(selected, null)),
+                Aggregation.count().as("total")).as("total");
+        for (String field : FACET_FIELDS) {
+            facet = facet.and(
+                    Aggregation.match(filterCriteria(selected, field)),
+                    Aggregation.group(field).count().as("count"),
+                    Aggregation.sort(Sort.Direction.ASC, "_id")).as(field);
+        }
+        operations.add(facet);
+
+        Document output = listingTemplate().aggregate(Aggregation.newAggregation(operations),
+                listingTemplate().getCollectionName(RegulatoryRule.class), Document.class).getUniqueMappedResult();
+
+        RuleFacets facets = new RuleFacets();
+        List<Document> total = output.getList("total", Document.class);
+        facets.setTotal(total.isEmpty() ? 0 : ((Number) total.get(0).get("total")).longValue());
+        for (String field : FACET_FIELDS) {
+            Map<String, Long> counts = new LinkedHashMap<>();
+            for (Document bucket : output.getList(field, Document.class)) {
+                Object value = bucket.get("_id");
+                if (value != null) {
+                    counts.put(value.toString(), ((Number) bucket.get("count")).longValue());
+                }
+            }
+            facets.getFacets().put(field, counts);
+        }
+        return facets;
+    }
+
+    /**
+     * Builds the conjunction of the selected filters, leaving out the given field (if any).
+     */
+    private Criteria filterCriteria(Map<String, String> selected, String excludedField) {
+        Criteria criteria = new Criteria();
+        selected.forEach((field, value) -> {
+            if (!field.equals(excludedField)) {
+                criteria.and(field).is(value);
+            }
+        });
+        return criteria;
+    }
+
+    private void putIfPresent(Map<String, String> selected, String field, String value) {
+        if (value != null && !value.isEmpty()) {
+            selected.put(field, value);
+        }
+    }
+
+    @Override
+    public Stream<RegulatoryRule> streamByFilters(String ruleType, String mdState, String shipToState, String channel,
+                                                  Sort sort, int batchSize) {
+        ColumnarRuleStore store = columnarStore();
+        if (store != null) {
+            return store.streamByFilters(ruleType, mdState, shipToState, channel, sort);
+        }
+        Query query = buildFilterQuery(ruleType, mdState, shipToState, channel)
+                .with(sort)
+                .cursorBatchSize(batchSize);
+        return exportTemplate().stream(query, RegulatoryRule.class).stream();
+    }
+
+    @Override
+    public List<String> findSequenceNumberBoundaries(String ruleType, String mdState, String shipToState,
+                                                     String channel, int parts) {
+        long total = exportTemplate().count(buildFilterQuery(ruleType, mdState, shipToState, channel),
+                RegulatoryRule.class);
+        TreeSet<String> boundaries = new TreeSet<>();
+        for (int i = 1; i < parts && total >= parts; i++) {
+            Query query = buildFilterQuery(ruleType, mdState, shipToState, channel)
+                    .with(Sort.by("sequenceNumber"))
+                    .skip(total * i / parts)
+                    .limit(1);
+            query.fields().include("sequenceNumber");
+            RegulatoryRule rule = exportTemplate().findOne(query, RegulatoryRule.class);
+            if (rule != null && rule.getSequenceNumber() != null) {
+                boundaries.add(rule.getSequenceNumber());
+            }
+        }
+        return new ArrayList<>(boundaries);
+    }
+
+    @Override
+    public Stream<RegulatoryRule> streamBySequenceRange(String ruleType, String mdState, String shipToState,
+                                                        String channel, String from, String to, int batchSize) {
+        Query query = buildFilterQuery(ruleType, mdState, shipToState, channel);
+        Criteria range = Criteria.where("sequenceNumber");
+        if (from != null) {
+            range.gte(from);
+            if (to != null) {
+                range.lt(to);
+            }
+        } else if (to != null) {
+            // $lt would skip rules without a string sequence number, which sort before every string
+            range.not().gte(to);
+        }
+        if (from != null || to != null) {
+            query.addCriteria(range);
+        }
+        query.with(Sort.by("sequenceNumber", "id")).cursorBatchSize(batchSize);
+        return exportTemplate().stream(query, RegulatoryRule.class).stream();
+    }
+
+    private ColumnarRuleStore columnarStore() {
+        return columnarStore != null && columnarStore.isLoaded() ? columnarStore : null;
+    }
+
+    private Query buildFilterQuery(String ruleType, String mdState, String shipToState, String channel) {
+        return RuleFilterQueries.filterQuery(ruleType, mdState, shipToState, channel);
+    }
+
+    @Override
+    public Set<String> findExistingSequenceNumbers(Collection<String> sequenceNumbers) {
+        Query query = new Query(Criteria.where("sequenceNumber").in(sequenceNumbers));
+        query.fields().include("sequenceNumber").exclude("_id");
+        Set<String> existing = new HashSet<>();
+        heavyTemplate.getCollection(heavyTemplate.getCollectionName(RegulatoryRule.class))
+                .find(query.getQueryObject())
+                .projection(query.getFieldsObject())
+                .forEach(document -> existing.add(document.getString("sequenceNumber")));
+        return existing;
+    }
+
+    @Override
+    public Map<Integer, String> bulkInsert(List<RegulatoryRule> rules, boolean ordered) {
+        Map<Integer, String> failures = new LinkedHashMap<>();
+        if (rules.isEmpty()) {
+            return failures;
+        }
+        BulkOperations.BulkMode mode = ordered ? BulkOperations.BulkMode.ORDERED : BulkOperations.BulkMode.UNORDERED;
+        try {
+            heavyTemplate.bulkOps(mode, RegulatoryRule.class).insert(rules).execute();
+        } catch (BulkOperationException e) {
+            e.getErrors().forEach(error -> failures.put(error.getIndex(),
+                    error.getCode() == DUPLICATE_KEY && MongoIndexInitializer.isSequenceNumberClash(error.getMessage())
+                            ? "Sequence number already exists" : error.getMessage()));
+        }
+        return failures;
+    }
+
+    @Override
+    public List<RuleVersionRef> findVersionsByFilters(String ruleType, String mdState, String shipToState,
+                                                      String channel) {
+        Query query = buildFilterQuery(ruleType, mdState, shipToState, channel);
+        query.fields().include("id").include("version");
+        return heavyTemplate.find(query, RegulatoryRule.class).stream()
+                .map(rule -> new RuleVersionRef(rule.getId(), rule.getVersion()))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public int bulkUpdateVersioned(List<RuleVersionRef> targets, Update update, Criteria guard) {
+        if (targets.isEmpty()) {
+            return 0;
+        }
+        BulkOperations ops = heavyTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, RegulatoryRule.class);
+        for (RuleVersionRef target : targets) {
+            Query query = new Query(Criteria.where("id").is(target.getId()).and("version").is(target.getVersion()));
+            if (guard != null) {
+                query.addCriteria(guard);
+            }
+            ops.updateOne(query, update);
+        }
+        return ops.execute().getModifiedCount();
+    }
+
+    @Override
+    public long reserveChangeSeqs(int count) {
+        Document counter = mongoTemplate.findAndModify(
+                new Query(Criteria.where("_id").is(CHANGE_SEQ_COUNTER)),
+                new Update().inc("seq", (long) count),
+                FindAndModifyOptions.options().returnNew(true).upsert(true),
+                Document.class, COUNTERS_COLLECTION);
+        return ((Number) counter.get("seq")).longValue() - count + 1;
+    }
+
+    @Override
+    public long reserveTrackedChangeSeq(long leaseMillis) {
+        // The number is briefly reserved without being recorded; the feed's settle time covers that gap
+        long changeSeq = reserveChangeSeqs(1);
+        mongoTemplate.insert(new Document("_id", changeSeq)
+                .append("expiresAt", new Date(System.currentTimeMillis() + leaseMillis)), RESERVATIONS_COLLECTION);
+        return changeSeq;
+    }
+
+    @Override
+    public void releaseChangeSeq(long changeSeq) {
+        mongoTemplate.remove(new Query(Criteria.where("_id").is(changeSeq)), RESERVATIONS_COLLECTION);
+    }
+
+    @Override
+    public long oldestInFlightChangeSeq() {
+        Document oldest = mongoTemplate.findOne(new Query(Criteria.where("expiresAt").gt(new Date()))
+                .with(Sort.by(Sort.Direction.ASC, "_id")), Document.class, RESERVATIONS_COLLECTION);
+        return oldest == null ? Long.MAX_VALUE : ((Number) oldest.get("_id")).longValue();
+    }
+
+    @Override
+    public void removeExpiredChangeSeqReservations() {
+        mongoTemplate.remove(new Query(Criteria.where("expiresAt").lte(new Date())), RESERVATIONS_COLLECTION);
+    }
+
+    @Override
+    public long currentChangeSeq() {
+        Document counter = mongoTemplate.findOne(
+                new Query(Criteria.where("_id").is(CHANGE_SEQ_COUNTER)), Document.class, COUNTERS_COLLECTION);
+        return counter == null ? 0 : ((Number) counter.get("seq")).longValue();
+    }
+
+    @Override
+    public List<RegulatoryRule> findChangedAfter(RuleCursor after, long upTo, int limit) {
+        Query query = new Query(Criteria.where("changeSeq").lte(upTo));
+        if (after != null) {
+            query.addCriteria(seekCriteria("changeSeq", Sort.Direction.ASC, after));
+        }
+        query.with(Sort.by(Sort.Direction.ASC, "changeSeq", "id")).limit(limit);
+        return mongoTemplate.find(query, RegulatoryRule.class);
+    }
+
+    /**
+     * Matches the rules that sort after the cursor position in (sortField, id) order. Nulls sort
+     * before every other value, so they come first in ascending order and last in descending order.
+     */
+    private Criteria seekCriteria(String field, Sort.Direction direction, RuleCursor after) {
+        boolean ascending = direction.isAscending();
+        // Ids nested in $or/$and are not converted by the query mapper, so compare against the ObjectId
+        Object id = ObjectId.isValid(after.getId()) ? new ObjectId(after.getId()) : after.getId();
+        Criteria sameValueAfterId = ascending
+                ? Criteria.where("id").gt(id)
+                : Criteria.where("id").lt(id);
+
+        if (after.getValue() == null) {
+            Criteria remainingNulls = new Criteria().andOperator(Criteria.where(field).is(null), sameValueAfterId);
+            return ascending
+                    ? new Criteria().orOperator(remainingNulls, Criteria.where(field).ne(null))
+                    : remainingNulls;
+        }
+
+        Criteria beyondValue = ascending
+                ? Criteria.where(field).gt(after.getValue())
+                : Criteria.where(field).lt(after.getValue());
+        Criteria sameValue = new Criteria().andOperator(Criteria.where(field).is(after.getValue()), sameValueAfterId);
+        return ascending
+                ? new Criteria().orOperator(beyondValue, sameValue)
+                : new Criteria().orOperator(beyondValue, sameValue, Criteria.where(field).is(null));
+    }
+}
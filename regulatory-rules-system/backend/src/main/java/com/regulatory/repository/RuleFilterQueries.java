@@ -0,0 +1,32 @@
+package com.regulatory.repository;
+
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+/**
+ * Builds the filter query shared by the blocking and the reactive repository.
+ */
+final class RuleFilterQueries {
+
+    private RuleFilterQueries() {
+    }
+
+    /**
+     * Adds a predicate only for the filters that are present, so that the query can be served by the
+     * compound indexes.
+     */
+    static Query filterQuery(String ruleType, String mdState, String shipToState, String channel) {
+        Query query = new Query();
+        addEquals(query, "ruleType", ruleType);
+        addEquals(query, "mdState", mdState);
+        addEquals(query, "shipToState", shipToState);
+        addEquals(query, "channel", channel);
+        return query;
+    }
+
+    private static void addEquals(Query query, String field, String value) {
+        if (value != null && !value.isEmpty()) {
+            query.addCriteria(Criteria.where(field).is(value));
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.regulatory.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.regulatory.model.BatchEvaluationError;
+import com.regulatory.model.BatchEvaluationSummary;
+import com.regulatory.model.RuleEvaluationRequest;
+import com.regulatory.model.RuleEvaluationResult;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Evaluates NDJSON streams of requests against a single rule index snapshot. Records are read in
+ * chunks that are evaluated in parallel on a dedicated fork-join pool; results are written back in
+ * input order. The number of chunks in flight is bounded, so a slow client or a slow producer stalls
+ * the stream instead of growing the buffers. Every line is parsed and validated on its own, so a bad
+ * record gets an error line with its number and the rest of the stream is still evaluated.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BatchEvaluationService {
+
+    private static final byte NEWLINE = '\n';
+
+    private final RuleEvaluationService evaluationService;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+
+    @Value("${evaluation.batch.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${evaluation.batch.parallelism:0}")
+    private int parallelism;
+
+    @Value("${evaluation.batch.max-pending-chunks:0}")
+    private int maxPendingChunks;
+
+    private ForkJoinPool pool;
+
+    @PostConstruct
+    public void init() {
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        pool = new ForkJoinPool(threads);
+        if (maxPendingChunks <= 0) {
+            maxPendingChunks = threads * 2;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        pool.shutdown();
+        pool.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Reads newline-delimited requests from {@code in} and writes one result or error line per request
+     * to {@code out}, followed by a final summary line.
+     */
+    public BatchEvaluationSummary evaluate(InputStream in, OutputStream out) throws IOException {
+        RuleMatchIndex snapshot = evaluationService.currentIndex();
+        ObjectReader requestReader = objectMapper.readerFor(RuleEvaluationRequest.class);
+        ObjectWriter resultWriter = objectMapper.writerFor(RuleEvaluationResult.class);
+        Deque<Future<EvaluatedChunk>> pending = new ArrayDeque<>();
+        long records = 0;
+        long errors = 0;
+        long start = System.nanoTime();
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            List<String> chunk = new ArrayList<>(chunkSize);
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                chunk.add(line);
+                records++;
+                if (chunk.size() == chunkSize) {
+                    errors += submit(pending, snapshot, requestReader, resultWriter, chunk, records - chunk.size() + 1, out);
+                    chunk = new ArrayList<>(chunkSize);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                errors += submit(pending, snapshot, requestReader, resultWriter, chunk, records - chunk.size() + 1, out);
+            }
+            while (!pending.isEmpty()) {
+                errors += writeNext(pending, out);
+            }
+        } catch (IOException | RuntimeException e) {
+            pending.forEach(future -> future.cancel(true));
+            throw e;
+        }
+
+        BatchEvaluationSummary summary = new BatchEvaluationSummary();
+        summary.setRecords(records);
+        summary.setErrors(errors);
+        long elapsedNanos = System.nanoTime() - start;
+        summary.setElapsedMillis(TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+        summary.setRecordsPerSecond(elapsedNanos > 0 ? records * 1_000_000_000d / elapsedNanos : 0);
+        out.write(objectMapper.writeValueAsBytes(Map.of("summary", summary)));
+        out.write(NEWLINE);
+        out.flush();
+
+        log.debug("Evaluated {} records ({} errors) at {} records/sec", records, errors,
+                (long) summary.getRecordsPerSecond());
+        return summary;
+    }
+
+    /**
+     * Queues a chunk for evaluation; returns the errors of a chunk written to make room, if any.
+     */
+    private long submit(Deque<Future<EvaluatedChunk>> pending, RuleMatchIndex snapshot, ObjectReader requestReader,
+                        ObjectWriter resultWriter, List<String> chunk, long firstRecord, OutputStream out)
+            throws IOException {
+        long errors = 0;
+        if (pending.size() >= maxPendingChunks) {
+            errors = writeNext(pending, out);
+        }
+        pending.addLast(pool.submit(() -> evaluateChunk(snapshot, requestReader, resultWriter, chunk, firstRecord)));
+        return errors;
+    }
+
+    private long writeNext(Deque<Future<EvaluatedChunk>> pending, OutputStream out) throws IOException {
+        try {
+            EvaluatedChunk chunk = pending.removeFirst().get();
+            out.write(chunk.output);
+            out.flush();
+            return chunk.errors;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Batch evaluation interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Batch evaluation failed", e.getCause());
+        }
+    }
+
+    private EvaluatedChunk evaluateChunk(RuleMatchIndex snapshot, ObjectReader requestReader,
+                                         ObjectWriter resultWriter, List<String> chunk, long firstRecord)
+            throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(chunk.size() * 256);
+        long errors = 0;
+        for (int i = 0; i < chunk.size(); i++) {
+            List<String> messages = new ArrayList<>();
+            RuleEvaluationRequest request = null;
+            try {
+                request = requestReader.readValue(chunk.get(i));
+                if (request == null) {
+                    messages.add("Record must be a JSON object");
+                } else {
+                    for (ConstraintViolation<RuleEvaluationRequest> violation : validator.validate(request)) {
+                        messages.add(violation.getPropertyPath() + ": " + violation.getMessage());
+                    }
+                }
+            } catch (JsonProcessingException e) {
+                messages.add("Malformed JSON: " + e.getOriginalMessage());
+            }
+            if (messages.isEmpty()) {
+                buffer.write(resultWriter.writeValueAsBytes(snapshot.evaluate(request)));
+            } else {
+                buffer.write(objectMapper.writeValueAsBytes(
+                        Map.of("error", new BatchEvaluationError(firstRecord + i, messages))));
+                errors++;
+            }
+            buffer.write(NEWLINE);
+        }
+        return new EvaluatedChunk(buffer.toByteArray(), errors);
+    }
+
+    private static class EvaluatedChunk {
+        private final byte[] output;
+        private final long errors;
+
+        EvaluatedChunk(byte[] output, long errors) {
+            this.output = output;
+            this.errors = errors;
+        }
+    }
+}
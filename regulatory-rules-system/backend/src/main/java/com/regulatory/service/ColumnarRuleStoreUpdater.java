@@ -0,0 +1,34 @@
+package com.regulatory.service;
+
+import com.regulatory.repository.ColumnarRuleStore;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Fills the {@link ColumnarRuleStore} whenever the rule set is (re)loaded and keeps it in step with rule
+ * writes, both local ones and those seen on the change stream. Until the load completes, reads go to Mongo.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "rules.read-backend", havingValue = "columnar")
+public class ColumnarRuleStoreUpdater {
+
+    private final ColumnarRuleStore store;
+
+    @EventListener
+    public void onRuleSetLoaded(RuleSetLoadedEvent event) {
+        long start = System.nanoTime();
+        store.load(event.getRules().iterator());
+        log.info("Loaded {} rules into the columnar store in {} ms", store.size(),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @EventListener
+    public void onRulesChanged(RuleChangedEvent event) {
+        store.apply(event.getRules(), event.getRemovedIds());
+    }
+}
@@ -0,0 +1,125 @@
+package com.regulatory.service;
+
+import com.regulatory.model.RegulatoryRule;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVPrinter;
+import org.apache.commons.csv.CSVRecord;
+
+import java.io.IOException;
+
+/**
+ * Column layout of the rules CSV extract, shared by the export and the import.
+ */
+public final class RegulatoryRuleCsv {
+
+    public static final String[] HEADERS = {
+        "Sequence Number", "Rule Type", "MD State", "Ship To State", "Zip Code",
+        "Channel", "Reg Cat Code", "Drug Schedule", "Refill Number", "Quantity",
+        "Days Supply", "User Location", "Dispensing Location", "Protocol",
+        "Days Ago", "Max Days Supply", "Max Quantity", "Max Refill",
+        "Max Days Allowed To Expiry Date"
+    };
+
+    public static final CSVFormat FORMAT = CSVFormat.DEFAULT.builder().setHeader(HEADERS).build();
+
+    public static final CSVFormat PARSE_FORMAT = CSVFormat.DEFAULT.builder()
+            .setHeader()
+            .setSkipHeaderRecord(true)
+            .setIgnoreEmptyLines(true)
+            .setTrim(true)
+            .build();
+
+    private RegulatoryRuleCsv() {
+    }
+
+    public static void printRecord(CSVPrinter csvPrinter, RegulatoryRule rule) throws IOException {
+        csvPrinter.printRecord(values(rule));
+    }
+
+    /**
+     * Formats the header as one CSV line, including the record separator.
+     */
+    public static String headerLine() {
+        return CSVFormat.DEFAULT.format((Object[]) HEADERS) + CSVFormat.DEFAULT.getRecordSeparator();
+    }
+
+    /**
+     * Formats a rule as one CSV line, including the record separator.
+     */
+    public static String formatLine(RegulatoryRule rule) {
+        return CSVFormat.DEFAULT.format(values(rule)) + CSVFormat.DEFAULT.getRecordSeparator();
+    }
+
+    private static Object[] values(RegulatoryRule rule) {
+        return new Object[] {
+            rule.getSequenceNumber(),
+            rule.getRuleType(),
+            rule.getMdState(),
+            rule.getShipToState(),
+            rule.getZipCode(),
+            rule.getChannel(),
+            rule.getRegCatCode(),
+            rule.getDrugSchedule(),
+            rule.getRefillNumber(),
+            rule.getQuantity(),
+            rule.getDaysSupply(),
+            rule.getUserLocation(),
+            rule.getDispensingLocation(),
+            rule.getProtocol(),
+            rule.getDaysAgo(),
+            rule.getMaxDaysSupply(),
+            rule.getMaxQuantity(),
+            rule.getMaxRefill(),
+            rule.getMaxDaysAllowedToExpiryDate()
+        };
+    }
+
+    /**
+     * Maps a record parsed with {@link #PARSE_FORMAT} back to a rule. Blank cells become nulls.
+     *
+     * @throws IllegalArgumentException if a numeric column does not hold an integer
+     */
+    public static RegulatoryRule parseRecord(CSVRecord record) {
+        RegulatoryRule rule = new RegulatoryRule();
+        rule.setSequenceNumber(text(record, HEADERS[0]));
+        rule.setRuleType(text(record, HEADERS[1]));
+        rule.setMdState(text(record, HEADERS[2]));
+        rule.setShipToState(text(record, HEADERS[3]));
+        rule.setZipCode(text(record, HEADERS[4]));
+        rule.setChannel(text(record, HEADERS[5]));
+        rule.setRegCatCode(text(record, HEADERS[6]));
+        rule.setDrugSchedule(text(record, HEADERS[7]));
+        rule.setRefillNumber(integer(record, HEADERS[8]));
+        rule.setQuantity(integer(record, HEADERS[9]));
+        rule.setDaysSupply(integer(record, HEADERS[10]));
+        rule.setUserLocation(text(record, HEADERS[11]));
+        rule.setDispensingLocation(text(record, HEADERS[12]));
+        rule.setProtocol(text(record, HEADERS[13]));
+        rule.setDaysAgo(integer(record, HEADERS[14]));
+        rule.setMaxDaysSupply(integer(record, HEADERS[15]));
+        rule.setMaxQuantity(integer(record, HEADERS[16]));
+        rule.setMaxRefill(integer(record, HEADERS[17]));
+        rule.setMaxDaysAllowedToExpiryDate(integer(record, HEADERS[18]));
+        return rule;
+    }
+
+    private static String text(CSVRecord record, String column) {
+        if (!record.isMapped(column) || !record.isSet(column)) {
+            return null;
+        }
+        String value = record.get(column);
+        return value.isEmpty() ? null : value;
+    }
+
+    private static Integer integer(CSVRecord record, String column) {
+        String value = text(record, column);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(column + " must be a whole number");
+        }
+    }
+}
@@ -1,54 +1,231 @@
 package com.regulatory.service;
 
+import com.regulatory.config.CacheConfig;
 import com.regulatory.model.RegulatoryRule;
+import com.regulatory.model.RuleCount;
+import com.regulatory.model.RuleCursor;
+import com.regulatory.model.RuleFacets;
+import com.regulatory.model.RuleSlice;
 import com.regulatory.repository.RegulatoryRulesRepository;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
+@Timed(value = "rules.service", histogram = true)
 public class RegulatoryRulesService {
 
+    private static final Set<String> SORTABLE_FIELDS = Set.of(
+            "sequenceNumber", "ruleType", "mdState", "shipToState", "zipCode", "channel", "regCatCode",
+            "drugSchedule", "refillNumber", "quantity", "daysSupply", "userLocation", "dispensingLocation",
+            "protocol", "daysAgo", "maxDaysSupply", "maxQuantity", "maxRefill", "maxDaysAllowedToExpiryDate");
+
+    /** Every rule field that can be requested in a projection, in declaration order. */
+    public static final List<String> RULE_FIELDS = List.of(
+            "id", "ruleType", "mdState", "shipToState", "zipCode", "channel", "regCatCode", "drugSchedule",
+            "refillNumber", "quantity", "daysSupply", "userLocation", "dispensingLocation", "protocol", "daysAgo",
+            "maxDaysSupply", "maxQuantity", "maxRefill", "maxDaysAllowedToExpiryDate", "sequenceNumber",
+            "version", "changeSeq");
+
     private final RegulatoryRulesRepository repository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CacheManager cacheManager;
+    private final RuleReadCoalescer coalescer;
 
+    @Value("${export.batch-size:500}")
+    private int exportBatchSize;
+
+    @Cacheable(cacheNames = CacheConfig.RULE_PAGES_CACHE, keyGenerator = "ruleQueryKeyGenerator")
     public Page<RegulatoryRule> getRules(String ruleType, String mdState, String shipToState, String channel, Pageable pageable) {
-        return repository.findByFilters(ruleType, mdState, shipToState, channel, pageable);
+        // Concurrent cache misses for the same page share one query
+        return coalescer.execute("getRules", CacheConfig.queryKey(ruleType, mdState, shipToState, channel, pageable),
+                () -> repository.findByFilters(ruleType, mdState, shipToState, channel, pageable));
+    }
+
+    /**
+     * Returns a page of rules as arrays of the values of the given fields, reading only those fields.
+     */
+    @Cacheable(cacheNames = CacheConfig.RULE_PAGES_CACHE, keyGenerator = "ruleQueryKeyGenerator")
+    public Page<Object[]> getRuleValues(String ruleType, String mdState, String shipToState, String channel,
+                                        Pageable pageable, List<String> fields) {
+        return repository.findValuesByFilters(ruleType, mdState, shipToState, channel, pageable, fields);
+    }
+
+    /**
+     * Parses a comma-separated field list into the projection for {@link #getRuleValues}. The id always
+     * comes first; a blank list selects every field.
+     */
+    public List<String> resolveFields(String fields) {
+        if (!StringUtils.hasText(fields)) {
+            return RULE_FIELDS;
+        }
+        Set<String> selected = new LinkedHashSet<>();
+        selected.add("id");
+        for (String field : fields.split(",")) {
+            String name = field.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            if (!RULE_FIELDS.contains(name)) {
+                throw new IllegalArgumentException("Unknown field: " + name);
+            }
+            selected.add(name);
+        }
+        return List.copyOf(selected);
     }
 
+    /**
+     * Returns the page of rules that follows the cursor in (sortField, id) order, without counting.
+     * Pass a null cursor for the first page; the returned slice carries the cursor for the next one.
+     */
+    public RuleSlice getRulesAfter(String ruleType, String mdState, String shipToState, String channel,
+                                   String sortField, Sort.Direction direction, String cursor, int size) {
+        if (!SORTABLE_FIELDS.contains(sortField)) {
+            throw new IllegalArgumentException("Unsupported sort field: " + sortField);
+        }
+        if (size < 1) {
+            throw new IllegalArgumentException("Page size must be positive");
+        }
+        RuleCursor after = cursor == null || cursor.isEmpty() ? null : RuleCursor.decode(cursor);
+        if (after != null && (!after.getSortField().equals(sortField) || after.getDirection() != direction)) {
+            throw new IllegalArgumentException("Cursor does not match the requested sort");
+        }
+
+        List<RegulatoryRule> rules = repository.findByFiltersAfter(ruleType, mdState, shipToState, channel,
+                sortField, direction, after, size + 1);
+        boolean hasNext = rules.size() > size;
+
+        RuleSlice slice = new RuleSlice();
+        slice.setContent(hasNext ? new ArrayList<>(rules.subList(0, size)) : rules);
+        slice.setSize(slice.getContent().size());
+        slice.setHasNext(hasNext);
+        if (hasNext) {
+            RegulatoryRule last = slice.getContent().get(size - 1);
+            Object lastValue = new BeanWrapperImpl(last).getPropertyValue(sortField);
+            slice.setNextCursor(new RuleCursor(sortField, direction, lastValue, last.getId()).encode());
+        }
+        return slice;
+    }
+
+    /**
+     * Counts the rules matching the filters. Without filters the collection's estimated count is used;
+     * filtered counts are cached for a short time and dropped on any rule change.
+     */
+    @Cacheable(cacheNames = CacheConfig.RULE_COUNTS_CACHE, keyGenerator = "ruleQueryKeyGenerator")
+    public RuleCount countRules(String ruleType, String mdState, String shipToState, String channel) {
+        RuleCount result = new RuleCount();
+        if (!StringUtils.hasText(ruleType) && !StringUtils.hasText(mdState)
+                && !StringUtils.hasText(shipToState) && !StringUtils.hasText(channel)) {
+            result.setCount(repository.estimatedCount());
+            result.setEstimated(true);
+        } else {
+            result.setCount(repository.countByFilters(ruleType, mdState, shipToState, channel));
+        }
+        return result;
+    }
+
+    /**
+     * Counts the rules per filter value under the current selection. Cached until the next rule change.
+     */
+    @Cacheable(cacheNames = CacheConfig.RULE_FACETS_CACHE, keyGenerator = "ruleQueryKeyGenerator")
+    public RuleFacets getFacets(String ruleType, String mdState, String shipToState, String channel) {
+        return repository.facetCounts(ruleType, mdState, shipToState, channel);
+    }
+
+    /**
+     * Drops cached reads after a rule change. Local writes are seen synchronously from
+     * {@link #createRule} and {@link #updateRule}; writes from other nodes arrive through the change stream.
+     * The entries are keyed by the write generation, so no later read would find them anyway; clearing
+     * only frees the space.
+     */
+    @EventListener
+    public void onRulesChanged(RuleChangedEvent event) {
+        cacheManager.getCache(CacheConfig.RULES_CACHE).clear();
+        cacheManager.getCache(CacheConfig.RULE_PAGES_CACHE).clear();
+        cacheManager.getCache(CacheConfig.RULE_COUNTS_CACHE).clear();
+        cacheManager.getCache(CacheConfig.RULE_FACETS_CACHE).clear();
+    }
+
+    /**
+     * Drops every cached read after the rule set was reloaded, e.g. when the change stream could not be resumed.
+     */
+    @EventListener
+    public void onRuleSetLoaded(RuleSetLoadedEvent event) {
+        cacheManager.getCache(CacheConfig.RULES_CACHE).clear();
+        cacheManager.getCache(CacheConfig.RULE_PAGES_CACHE).clear();
+        cacheManager.getCache(CacheConfig.RULE_COUNTS_CACHE).clear();
+        cacheManager.getCache(CacheConfig.RULE_FACETS_CACHE).clear();
+    }
+
+    /**
+     * Streams all rules matching the filters without paging or counting.
+     * The caller is responsible for closing the returned stream.
+     */
+    public Stream<RegulatoryRule> streamRules(String ruleType, String mdState, String shipToState, String channel, Sort sort) {
+        return repository.streamByFilters(ruleType, mdState, shipToState, channel, sort, exportBatchSize);
+    }
+
+    @Cacheable(cacheNames = CacheConfig.RULES_CACHE, keyGenerator = "ruleQueryKeyGenerator", unless = "#result == null")
     public Optional<RegulatoryRule> getRuleById(String id) {
-        return repository.findById(id);
+        return coalescer.execute("getRuleById", id, () -> repository.findById(id));
     }
 
     @Transactional
     public RegulatoryRule createRule(RegulatoryRule rule) {
         validateRule(rule);
-        return repository.save(rule);
+        rule.setChangeSeq(repository.reserveChangeSeqs(1));
+        RegulatoryRule savedRule = repository.save(rule);
+        eventPublisher.publishEvent(RuleChangedEvent.of(savedRule));
+        return savedRule;
     }
 
     @Transactional
     public RegulatoryRule updateRule(String id, RegulatoryRule rule) {
+        // The version makes the save conditional, so a concurrent edit fails instead of being overwritten
+        if (rule.getVersion() == null) {
+            throw new IllegalArgumentException("Version is required to update a rule");
+        }
         validateRule(rule);
         rule.setId(id);
-        return repository.save(rule);
+        rule.setChangeSeq(repository.reserveChangeSeqs(1));
+        RegulatoryRule savedRule = repository.save(rule);
+        eventPublisher.publishEvent(RuleChangedEvent.of(savedRule));
+        return savedRule;
     }
 
-    private void validateRule(RegulatoryRule rule) {
+    /**
+     * Runs the checks that need no database access. Sequence number uniqueness is enforced by the unique
+     * index, so a clash surfaces from the save as a {@link org.springframework.dao.DuplicateKeyException}.
+     */
+    void validateRule(RegulatoryRule rule) {
         // Add any additional business validation logic here
-        List<RegulatoryRule> existingRules = repository.findBySequenceNumber(rule.getSequenceNumber());
-        if (!existingRules.isEmpty() && (rule.getId() == null || 
-            !existingRules.get(0).getId().equals(rule.getId()))) {
-            throw new IllegalArgumentException("Sequence number already exists");
-        }
+        validateFieldRelationships(rule);
+    }
 
-        // Validate relationships between fields
+    /**
+     * Checks the relationships between the fields of a single rule. Does not touch the database.
+     */
+    public void validateFieldRelationships(RegulatoryRule rule) {
         if (rule.getMaxDaysSupply() != null && rule.getDaysSupply() != null &&
             rule.getDaysSupply() > rule.getMaxDaysSupply()) {
             throw new IllegalArgumentException("Days supply cannot exceed max days supply");
@@ -65,6 +242,7 @@ public class RegulatoryRulesService {
         }
     }
 
+    @Cacheable(CacheConfig.FIELD_METADATA_CACHE)
     public List<Map<String, Object>> getFieldMetadata() {
         List<Map<String, Object>> metadata = new ArrayList<>();
         
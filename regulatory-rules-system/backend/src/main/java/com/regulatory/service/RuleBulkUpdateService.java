@@ -0,0 +1,254 @@
+package com.regulatory.service;
+
+import com.regulatory.model.RegulatoryRule;
+import com.regulatory.model.RuleBulkUpdateRequest;
+import com.regulatory.model.RuleBulkUpdateResult;
+import com.regulatory.model.RuleUpdateOutcome;
+import com.regulatory.model.RuleVersionRef;
+import com.regulatory.repository.RegulatoryRulesRepository;
+import io.micrometer.core.annotation.Timed;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Applies a partial update to many rules with one bulk write. Each rule is updated only while it still
+ * has the version the caller saw, so concurrent edits are reported as conflicts instead of being
+ * overwritten. Field relationships that involve a field the update does not touch (for example a new
+ * max days supply against each rule's days supply) are enforced by the write filter as well.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@Timed(value = "rules.service", histogram = true)
+public class RuleBulkUpdateService {
+
+    private static final Set<String> FILTER_FIELDS = Set.of("ruleType", "mdState", "shipToState", "channel");
+
+    private static final Set<String> REQUIRED_TEXT_FIELDS = Set.of("ruleType", "mdState", "shipToState");
+
+    private static final Set<String> TEXT_FIELDS = Set.of(
+            "ruleType", "mdState", "shipToState", "zipCode", "channel", "regCatCode", "drugSchedule",
+            "userLocation", "dispensingLocation", "protocol");
+
+    private static final Set<String> NUMBER_FIELDS = Set.of(
+            "refillNumber", "quantity", "daysSupply", "daysAgo", "maxDaysSupply", "maxQuantity", "maxRefill",
+            "maxDaysAllowedToExpiryDate");
+
+    /** Pairs of (value, limit) fields where the value may not exceed the limit. */
+    private static final String[][] LIMITED_FIELDS = {
+            {"daysSupply", "maxDaysSupply"},
+            {"quantity", "maxQuantity"},
+            {"refillNumber", "maxRefill"}
+    };
+
+    private final RegulatoryRulesRepository repository;
+    private final RegulatoryRulesService rulesService;
+    private final RuleChangeFeedService changeFeedService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${bulk-update.max-rules:10000}")
+    private int maxRules;
+
+    public RuleBulkUpdateResult bulkUpdate(RuleBulkUpdateRequest request) {
+        Map<String, Object> changes = validateChanges(request.getSet());
+        List<RuleVersionRef> targets = resolveTargets(request);
+
+        // The changeSeq is reserved for this call alone, so a rule carrying it was written by this update
+        long changeSeq = changeFeedService.reserveForLongWrite();
+        Update update = new Update();
+        changes.forEach(update::set);
+        update.inc("version", 1);
+        update.set("changeSeq", changeSeq);
+        int modified;
+        try {
+            modified = repository.bulkUpdateVersioned(targets, update, limitGuard(changes));
+        } finally {
+            changeFeedService.release(changeSeq);
+        }
+
+        // One read of the touched rules gives the outcome of every update and the full documents
+        // the local index and caches need
+        Map<String, RegulatoryRule> current = new HashMap<>();
+        repository.findAllById(targets.stream().map(RuleVersionRef::getId).collect(Collectors.toList()))
+                .forEach(rule -> current.put(rule.getId(), rule));
+
+        List<RegulatoryRule> updated = new ArrayList<>(modified);
+        List<RegulatoryRule> overwritten = new ArrayList<>();
+        for (RuleVersionRef target : targets) {
+            RegulatoryRule rule = current.get(target.getId());
+            if (rule == null) {
+                continue;
+            }
+            if (Objects.equals(rule.getChangeSeq(), changeSeq)) {
+                updated.add(rule);
+            } else if (rule.getChangeSeq() != null && rule.getChangeSeq() > changeSeq
+                    && !Objects.equals(rule.getVersion(), target.getVersion())) {
+                overwritten.add(rule);
+            }
+        }
+        // A rule updated here and then written again no longer carries the changeSeq. The modified count
+        // tells how many of those there are; only when it accounts for every such rule are they known
+        // to be ours, otherwise they are reported as conflicts.
+        Set<String> updatedIds = updated.stream().map(RegulatoryRule::getId).collect(Collectors.toSet());
+        if (!overwritten.isEmpty() && modified - updated.size() == overwritten.size()) {
+            overwritten.forEach(rule -> updatedIds.add(rule.getId()));
+        }
+
+        RuleBulkUpdateResult result = new RuleBulkUpdateResult();
+        result.setRequested(targets.size());
+        for (RuleVersionRef target : targets) {
+            result.getResults().add(outcome(target, current.get(target.getId()), updatedIds, changes));
+        }
+        result.setUpdated(updatedIds.size());
+
+        // Rules written again since carry the other write's state, which that write publishes itself
+        if (!updated.isEmpty()) {
+            eventPublisher.publishEvent(new RuleChangedEvent(updated));
+        }
+        log.info("Bulk update of {} changed {} of {} rules", changes.keySet(), updatedIds.size(), targets.size());
+        return result;
+    }
+
+    private RuleUpdateOutcome outcome(RuleVersionRef target, RegulatoryRule rule, Set<String> updatedIds,
+                                      Map<String, Object> changes) {
+        if (rule == null) {
+            return new RuleUpdateOutcome(target.getId(), RuleUpdateOutcome.Status.NOT_FOUND, null, "Rule not found");
+        }
+        if (updatedIds.contains(rule.getId())) {
+            return new RuleUpdateOutcome(rule.getId(), RuleUpdateOutcome.Status.UPDATED, rule.getVersion(), null);
+        }
+        if (!Objects.equals(rule.getVersion(), target.getVersion())) {
+            return new RuleUpdateOutcome(rule.getId(), RuleUpdateOutcome.Status.CONFLICT, rule.getVersion(),
+                    "Rule was modified by another user");
+        }
+        // The version matched, so the rule was held back by the limit guard
+        return new RuleUpdateOutcome(rule.getId(), RuleUpdateOutcome.Status.INVALID, rule.getVersion(),
+                relationshipViolation(rule, changes));
+    }
+
+    private String relationshipViolation(RegulatoryRule rule, Map<String, Object> changes) {
+        RegulatoryRule merged = new RegulatoryRule();
+        BeanUtils.copyProperties(rule, merged);
+        new BeanWrapperImpl(merged).setPropertyValues(changes);
+        try {
+            rulesService.validateFieldRelationships(merged);
+            return "Rule was not updated";
+        } catch (IllegalArgumentException e) {
+            return e.getMessage();
+        }
+    }
+
+    private Map<String, Object> validateChanges(Map<String, Object> set) {
+        Map<String, Object> changes = new LinkedHashMap<>();
+        set.forEach((field, value) -> {
+            if (NUMBER_FIELDS.contains(field)) {
+                changes.put(field, toNumber(field, value));
+            } else if (TEXT_FIELDS.contains(field)) {
+                if (value != null && !(value instanceof String)) {
+                    throw new IllegalArgumentException(field + " must be text");
+                }
+                if (REQUIRED_TEXT_FIELDS.contains(field) && !StringUtils.hasText((String) value)) {
+                    throw new IllegalArgumentException(field + " is required");
+                }
+                changes.put(field, value);
+            } else {
+                throw new IllegalArgumentException("Field cannot be bulk-updated: " + field);
+            }
+        });
+
+        // Relationships between two fields that are both being set can be checked up front
+        RegulatoryRule partial = new RegulatoryRule();
+        new BeanWrapperImpl(partial).setPropertyValues(changes);
+        rulesService.validateFieldRelationships(partial);
+        return changes;
+    }
+
+    private Integer toNumber(String field, Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (!(value instanceof Integer || value instanceof Long || value instanceof Short)
+                || ((Number) value).longValue() < 0 || ((Number) value).longValue() > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(field + " must be a non-negative whole number");
+        }
+        return ((Number) value).intValue();
+    }
+
+    /**
+     * Builds the write filter for relationships where only one side is being set: the other side is
+     * read from each rule by the database rather than by a separate query.
+     */
+    private Criteria limitGuard(Map<String, Object> changes) {
+        List<Criteria> guards = new ArrayList<>();
+        for (String[] pair : LIMITED_FIELDS) {
+            String valueField = pair[0];
+            String limitField = pair[1];
+            Object value = changes.get(valueField);
+            Object limit = changes.get(limitField);
+            if (value != null && !changes.containsKey(limitField)) {
+                guards.add(new Criteria().orOperator(
+                        Criteria.where(limitField).is(null), Criteria.where(limitField).gte(value)));
+            } else if (limit != null && !changes.containsKey(valueField)) {
+                guards.add(new Criteria().orOperator(
+                        Criteria.where(valueField).is(null), Criteria.where(valueField).lte(limit)));
+            }
+        }
+        if (guards.isEmpty()) {
+            return null;
+        }
+        return guards.size() == 1 ? guards.get(0) : new Criteria().andOperator(guards);
+    }
+
+    private List<RuleVersionRef> resolveTargets(RuleBulkUpdateRequest request) {
+        boolean byId = request.getRules() != null && !request.getRules().isEmpty();
+        boolean byFilter = request.getFilter() != null && request.getFilter().values().stream()
+                .anyMatch(StringUtils::hasText);
+        if (byId == byFilter) {
+            throw new IllegalArgumentException("Select the rules either by id or by a non-empty filter");
+        }
+
+        List<RuleVersionRef> targets;
+        if (byId) {
+            targets = request.getRules();
+            Set<String> ids = new HashSet<>();
+            for (RuleVersionRef target : targets) {
+                if (!ids.add(target.getId())) {
+                    throw new IllegalArgumentException("Duplicate rule id: " + target.getId());
+                }
+            }
+        } else {
+            Map<String, String> filter = request.getFilter();
+            for (String field : filter.keySet()) {
+                if (!FILTER_FIELDS.contains(field)) {
+                    throw new IllegalArgumentException("Unsupported filter field: " + field);
+                }
+            }
+            targets = repository.findVersionsByFilters(filter.get("ruleType"), filter.get("mdState"),
+                    filter.get("shipToState"), filter.get("channel"));
+        }
+
+        if (targets.size() > maxRules) {
+            throw new IllegalArgumentException(
+                    "Bulk update selects " + targets.size() + " rules; the limit is " + maxRules);
+        }
+        return targets;
+    }
+}
@@ -0,0 +1,135 @@
+package com.regulatory.service;
+
+import com.regulatory.model.RegulatoryRule;
+import com.regulatory.model.RuleChanges;
+import com.regulatory.model.RuleCursor;
+import com.regulatory.repository.RegulatoryRulesRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serves the rules that were inserted or updated after a client's token, in change sequence order.
+ * <p>
+ * A sequence number is reserved before the write that carries it, so a write can become visible
+ * after one with a higher number. Returning such a rule after the client's token already moved past
+ * it would lose it for good. The feed therefore only returns numbers that were reserved at least
+ * {@code changes.settle-ms} ago, measured by sampling the counter on this node's monotonic clock.
+ * <p>
+ * Bulk updates and import chunks can write for much longer than that, so they reserve their number
+ * through {@link #reserveForLongWrite} instead. The reservation is recorded in the database until the
+ * write ends (or {@code changes.reservation-lease-ms} passes, should the node die), and the feed, on any
+ * node, stops short of the oldest one still in flight.
+ */
+@Service
+@RequiredArgsConstructor
+public class RuleChangeFeedService {
+
+    private static final String SEQ_FIELD = "changeSeq";
+
+    private final RegulatoryRulesRepository repository;
+
+    /** Counter samples as {nanoTime, value}, oldest first. */
+    private final Deque<long[]> samples = new ArrayDeque<>();
+
+    @Value("${changes.settle-ms:5000}")
+    private long settleMillis;
+
+    @Value("${changes.max-page-size:5000}")
+    private int maxPageSize;
+
+    @Value("${changes.reservation-lease-ms:600000}")
+    private long reservationLeaseMillis;
+
+    /**
+     * Reserves the change sequence number for a write that may outlast the settle time. Pass it to
+     * {@link #release} once the write has finished, successfully or not.
+     */
+    public long reserveForLongWrite() {
+        return repository.reserveTrackedChangeSeq(reservationLeaseMillis);
+    }
+
+    public void release(long changeSeq) {
+        repository.releaseChangeSeq(changeSeq);
+    }
+
+    public RuleChanges getChanges(String since, int size) {
+        if (size < 1 || size > maxPageSize) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + maxPageSize);
+        }
+        RuleCursor after = since == null || since.isEmpty() ? null : RuleCursor.decode(since);
+        if (after != null && (!SEQ_FIELD.equals(after.getSortField()) || !(after.getValue() instanceof Long))) {
+            throw new IllegalArgumentException("Invalid change token");
+        }
+
+        long upTo = Math.min(settledChangeSeq(), repository.oldestInFlightChangeSeq() - 1);
+        List<RegulatoryRule> rules = repository.findChangedAfter(after, upTo, size + 1);
+        boolean hasMore = rules.size() > size;
+
+        RuleChanges changes = new RuleChanges();
+        changes.setContent(hasMore ? new ArrayList<>(rules.subList(0, size)) : rules);
+        changes.setSize(changes.getContent().size());
+        changes.setHasMore(hasMore);
+        if (changes.getContent().isEmpty()) {
+            changes.setNextToken(since == null ? "" : since);
+        } else {
+            RegulatoryRule last = changes.getContent().get(changes.getSize() - 1);
+            changes.setNextToken(new RuleCursor(SEQ_FIELD, Sort.Direction.ASC, last.getChangeSeq(), last.getId()).encode());
+        }
+        return changes;
+    }
+
+    @Scheduled(fixedDelayString = "${changes.sample-interval-ms:1000}")
+    public void sampleCounter() {
+        repository.removeExpiredChangeSeqReservations();
+        if (settleMillis <= 0) {
+            return;
+        }
+        long value = repository.currentChangeSeq();
+        synchronized (samples) {
+            samples.addLast(new long[]{System.nanoTime(), value});
+            // Keep only the newest sample that is already settled, plus the ones still settling
+            long settledBefore = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(settleMillis);
+            while (samples.size() > 1) {
+                long[] oldest = samples.removeFirst();
+                if (!isBefore(samples.peekFirst()[0], settledBefore)) {
+                    samples.addFirst(oldest);
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the highest change sequence number whose write has had time to become visible, or -1
+     * when no counter sample is old enough yet.
+     */
+    long settledChangeSeq() {
+        if (settleMillis <= 0) {
+            return Long.MAX_VALUE;
+        }
+        long settledBefore = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(settleMillis);
+        long settled = -1;
+        synchronized (samples) {
+            for (long[] sample : samples) {
+                if (!isBefore(sample[0], settledBefore)) {
+                    break;
+                }
+                settled = sample[1];
+            }
+        }
+        return settled;
+    }
+
+    private static boolean isBefore(long nanoTime, long other) {
+        return nanoTime - other <= 0;
+    }
+}
@@ -0,0 +1,298 @@
+package com.regulatory.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mongodb.MongoCommandException;
+import com.mongodb.MongoException;
+import com.mongodb.client.ChangeStreamIterable;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import com.regulatory.model.RegulatoryRule;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Follows the Mongo change stream of the rules collection and republishes every write as a
+ * {@link RuleChangedEvent}, so that caches and in-memory indexes on this node also see writes made
+ * by other nodes. Requires a replica set; on a standalone server the listener logs and stops.
+ *
+ * <p>Started by {@link RuleDataBootstrap}, possibly from the resume token of a snapshot. If the stream
+ * cannot be resumed from there (the oplog no longer reaches back that far), the listener asks for a
+ * full reload and carries on from the current position. The same happens when publishing a change fails,
+ * so a failing listener never stops the stream for good.
+ *
+ * <p>Every event makes the in-memory indexes rebuild and the query caches clear, so the changes the
+ * driver has already received are published together as one event, up to
+ * {@code rules.change-stream.max-batch-size} at a time. Changes this node has already applied from its
+ * own writes (same or newer changeSeq) are left out.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RuleChangeStreamListener {
+
+    private static final int CHANGE_STREAM_NOT_SUPPORTED = 40573;
+    private static final Set<Integer> RESUME_FAILED = Set.of(260, 280, 286);
+    private static final long MAX_BACKOFF_MILLIS = 60_000;
+
+    private final MongoTemplate mongoTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${rules.change-stream.enabled:true}")
+    private boolean enabled;
+
+    @Value("${rules.change-stream.max-batch-size:1000}")
+    private int maxBatchSize;
+
+    @Value("${rules.change-stream.applied-cache-size:100000}")
+    private long appliedCacheSize;
+
+    /** Highest changeSeq this node has applied per rule id, from its own writes and from the stream. */
+    private Cache<String, Long> appliedChangeSeqs;
+    private volatile boolean running;
+    private volatile BsonDocument resumeToken;
+    private Runnable reload;
+    private Thread worker;
+
+    @PostConstruct
+    void init() {
+        appliedChangeSeqs = Caffeine.newBuilder().maximumSize(appliedCacheSize).build();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * The position up to which all changes have been published, or null before the stream is open.
+     */
+    public BsonDocument getResumeToken() {
+        return resumeToken;
+    }
+
+    /**
+     * Returns the current end of the change stream, or null if change streams are not available. A full
+     * load that follows this call can then be caught up from the returned token without missing writes.
+     */
+    public BsonDocument currentPosition() {
+        if (!enabled) {
+            return null;
+        }
+        try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor = watch().cursor()) {
+            return cursor.getResumeToken();
+        } catch (MongoException e) {
+            log.debug("Could not read the change stream position: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Starts following changes after {@code resumeFrom} (or from now when null). {@code reload} is run on
+     * the listener thread when the stream cannot be resumed and the rule set has to be read again.
+     */
+    public void start(BsonDocument resumeFrom, Runnable reload) {
+        if (!enabled) {
+            log.info("Rule change stream is disabled");
+            return;
+        }
+        this.resumeToken = resumeFrom;
+        this.reload = reload;
+        running = true;
+        worker = new Thread(this::follow, "rule-change-stream");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @EventListener
+    public void onRulesChanged(RuleChangedEvent event) {
+        for (RegulatoryRule rule : event.getRules()) {
+            if (rule.getId() != null && rule.getChangeSeq() != null) {
+                appliedChangeSeqs.asMap().merge(rule.getId(), rule.getChangeSeq(), Math::max);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+        }
+    }
+
+    private void follow() {
+        long backoffMillis = 1000;
+        boolean resync = false;
+        while (running) {
+            try {
+                if (resync) {
+                    resumeToken = currentPosition();
+                    reload.run();
+                    resync = false;
+                }
+                try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor = openCursor()) {
+                    log.info("Following change stream of {}", mongoTemplate.getCollectionName(RegulatoryRule.class));
+                    backoffMillis = 1000;
+                    while (running) {
+                        List<ChangeStreamDocument<Document>> batch = nextBatch(cursor);
+                        if (!batch.isEmpty()) {
+                            publish(batch);
+                        }
+                        // Also advances while the collection is idle, which keeps snapshot tokens recent
+                        BsonDocument token = cursor.getResumeToken();
+                        if (token != null) {
+                            resumeToken = token;
+                        }
+                    }
+                }
+            } catch (MongoCommandException e) {
+                if (e.getErrorCode() == CHANGE_STREAM_NOT_SUPPORTED) {
+                    log.warn("Change streams are not supported by this deployment; writes from other nodes will not be seen");
+                    if (resumeToken != null || resync) {
+                        // Started from a snapshot that can no longer be caught up
+                        reloadUntilDone();
+                    }
+                    return;
+                }
+                if (resumeToken != null && RESUME_FAILED.contains(e.getErrorCode())) {
+                    log.warn("Rule change stream cannot be resumed ({}); reloading all rules", e.getErrorMessage());
+                    resync = true;
+                    continue;
+                }
+                log.warn("Rule change stream failed, retrying in {} ms: {}", backoffMillis, e.getMessage());
+                backoffMillis = backOff(backoffMillis);
+            } catch (MongoException e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Rule change stream failed, retrying in {} ms: {}", backoffMillis, e.getMessage());
+                backoffMillis = backOff(backoffMillis);
+            } catch (RuntimeException e) {
+                // A failing converter, listener or reload may have left caches and indexes half-updated,
+                // so the rule set is read again rather than carrying on after the failed change
+                log.error("Rule change stream listener failed; reloading all rules in {} ms", backoffMillis, e);
+                resync = true;
+                backoffMillis = backOff(backoffMillis);
+            }
+        }
+    }
+
+    private void reloadUntilDone() {
+        long backoffMillis = 1000;
+        while (running) {
+            try {
+                reload.run();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Reloading all rules failed, retrying in {} ms", backoffMillis, e);
+                backoffMillis = backOff(backoffMillis);
+            }
+        }
+    }
+
+    private MongoChangeStreamCursor<ChangeStreamDocument<Document>> openCursor() {
+        ChangeStreamIterable<Document> stream = watch()
+                .fullDocument(FullDocument.UPDATE_LOOKUP)
+                .maxAwaitTime(1, TimeUnit.SECONDS);
+        if (resumeToken != null) {
+            stream = stream.resumeAfter(resumeToken);
+        }
+        return stream.cursor();
+    }
+
+    private ChangeStreamIterable<Document> watch() {
+        return mongoTemplate.getCollection(mongoTemplate.getCollectionName(RegulatoryRule.class)).watch();
+    }
+
+    /**
+     * Waits up to the await time for the next change, then adds the changes the driver already holds
+     * without going back to the server.
+     */
+    private List<ChangeStreamDocument<Document>> nextBatch(
+            MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor) {
+        ChangeStreamDocument<Document> change = cursor.tryNext();
+        if (change == null) {
+            return List.of();
+        }
+        List<ChangeStreamDocument<Document>> batch = new ArrayList<>();
+        batch.add(change);
+        while (batch.size() < maxBatchSize && cursor.available() > 0) {
+            batch.add(cursor.next());
+        }
+        return batch;
+    }
+
+    private void publish(List<ChangeStreamDocument<Document>> batch) {
+        // Later changes to the same rule replace earlier ones, so the event holds each id once
+        Map<String, RegulatoryRule> changed = new LinkedHashMap<>();
+        Set<String> removed = new LinkedHashSet<>();
+        int alreadyApplied = 0;
+        for (ChangeStreamDocument<Document> change : batch) {
+            switch (change.getOperationType()) {
+                case INSERT:
+                case UPDATE:
+                case REPLACE:
+                    if (change.getFullDocument() != null) {
+                        RegulatoryRule rule = mongoTemplate.getConverter().read(RegulatoryRule.class, change.getFullDocument());
+                        if (isApplied(rule)) {
+                            alreadyApplied++;
+                        } else {
+                            removed.remove(rule.getId());
+                            changed.put(rule.getId(), rule);
+                        }
+                    }
+                    break;
+                case DELETE:
+                    String id = toId(change.getDocumentKey().get("_id"));
+                    changed.remove(id);
+                    removed.add(id);
+                    break;
+                default:
+                    log.debug("Ignoring change stream event {}", change.getOperationType());
+            }
+        }
+        if (!changed.isEmpty() || !removed.isEmpty()) {
+            eventPublisher.publishEvent(new RuleChangedEvent(new ArrayList<>(changed.values()), new ArrayList<>(removed)));
+        }
+        log.debug("Published {} of {} changes from the change stream ({} already applied)",
+                changed.size() + removed.size(), batch.size(), alreadyApplied);
+    }
+
+    private boolean isApplied(RegulatoryRule rule) {
+        Long applied = appliedChangeSeqs.getIfPresent(rule.getId());
+        return applied != null && rule.getChangeSeq() != null && rule.getChangeSeq() <= applied;
+    }
+
+    private String toId(BsonValue id) {
+        return id.isObjectId() ? id.asObjectId().getValue().toHexString() : id.asString().getValue();
+    }
+
+    private long backOff(long backoffMillis) {
+        try {
+            Thread.sleep(backoffMillis);
+        } catch (InterruptedException interrupted) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+        return Math.min(backoffMillis * 2, MAX_BACKOFF_MILLIS);
+    }
+}
@@ -0,0 +1,35 @@
+package com.regulatory.service;
+
+import com.regulatory.model.RegulatoryRule;
+import lombok.Getter;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Published after rules have been written, either by this node or, through the change stream, by
+ * another one, so that caches and in-memory views of the rule set can be updated.
+ */
+@Getter
+public class RuleChangedEvent {
+
+    private final List<RegulatoryRule> rules;
+    private final List<String> removedIds;
+
+    public RuleChangedEvent(List<RegulatoryRule> rules, List<String> removedIds) {
+        this.rules = Collections.unmodifiableList(rules);
+        this.removedIds = Collections.unmodifiableList(removedIds);
+    }
+
+    public RuleChangedEvent(List<RegulatoryRule> rules) {
+        this(rules, List.of());
+    }
+
+    public static RuleChangedEvent of(RegulatoryRule rule) {
+        return new RuleChangedEvent(List.of(rule));
+    }
+
+    public static RuleChangedEvent removed(String id) {
+        return new RuleChangedEvent(List.of(), List.of(id));
+    }
+}
@@ -0,0 +1,167 @@
+package com.regulatory.service;
+
+import com.regulatory.model.RegulatoryRule;
+import com.regulatory.model.RuleConflict;
+import com.regulatory.model.RuleConflictReport;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+/**
+ * Finds rules that can apply to the same request (on every match dimension they agree or one of them
+ * is a wildcard) but set different limits.
+ * <p>
+ * The full scan avoids comparing every pair. Rules are grouped by which dimensions they leave empty;
+ * two groups can only overlap on the dimensions both of them set, so for each pair of groups the rules
+ * are bucketed by their values on exactly those dimensions and only rules in the same bucket are
+ * compared. The cost is linear in the rule count per pair of groups, of which there are few, plus the
+ * number of overlapping rule pairs. A single rule is checked through the {@link RuleMatchIndex} bitmaps.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RuleConflictAnalyzer {
+
+    private static final Map<String, Function<RegulatoryRule, Integer>> LIMITS = limits();
+
+    private final RuleEvaluationService evaluationService;
+
+    @Value("${conflicts.max-reported:1000}")
+    private int maxReported;
+
+    private static Map<String, Function<RegulatoryRule, Integer>> limits() {
+        Map<String, Function<RegulatoryRule, Integer>> limits = new LinkedHashMap<>();
+        limits.put("maxQuantity", RegulatoryRule::getMaxQuantity);
+        limits.put("maxDaysSupply", RegulatoryRule::getMaxDaysSupply);
+        return limits;
+    }
+
+    /**
+     * Checks every rule against every other rule in the current index.
+     */
+    public RuleConflictReport analyze() {
+        long start = System.nanoTime();
+        List<RegulatoryRule> rules = new ArrayList<>(evaluationService.currentIndex().getRules());
+        rules.sort(Comparator.comparing(RegulatoryRule::getSequenceNumber, Comparator.nullsLast(Comparator.naturalOrder())));
+
+        // Bit d of a mask is set when the rule has a value for dimension d
+        Map<Integer, List<Entry>> byMask = new TreeMap<>();
+        for (RegulatoryRule rule : rules) {
+            String[] values = RuleMatchIndex.dimensionValues(rule);
+            int mask = 0;
+            for (int dimension = 0; dimension < values.length; dimension++) {
+                if (values[dimension] != null) {
+                    mask |= 1 << dimension;
+                }
+            }
+            byMask.computeIfAbsent(mask, m -> new ArrayList<>()).add(new Entry(rule, values));
+        }
+
+        RuleConflictReport report = new RuleConflictReport();
+        report.setRulesScanned(rules.size());
+        List<Integer> masks = new ArrayList<>(byMask.keySet());
+        for (int i = 0; i < masks.size(); i++) {
+            for (int j = i; j < masks.size(); j++) {
+                int common = masks.get(i) & masks.get(j);
+                Map<List<String>, List<Entry>> buckets = new LinkedHashMap<>();
+                for (Entry entry : byMask.get(masks.get(i))) {
+                    buckets.computeIfAbsent(entry.key(common), k -> new ArrayList<>()).add(entry);
+                }
+                if (i == j) {
+                    for (List<Entry> bucket : buckets.values()) {
+                        for (int a = 0; a < bucket.size(); a++) {
+                            for (int b = a + 1; b < bucket.size(); b++) {
+                                check(bucket.get(a).rule, bucket.get(b).rule, report);
+                            }
+                        }
+                    }
+                } else {
+                    for (Entry entry : byMask.get(masks.get(j))) {
+                        for (Entry other : buckets.getOrDefault(entry.key(common), List.of())) {
+                            check(other.rule, entry.rule, report);
+                        }
+                    }
+                }
+            }
+        }
+
+        log.info("Analyzed {} rules in {} wildcard groups: {} conflicts in {} ms", rules.size(), masks.size(),
+                report.getConflictCount(), (System.nanoTime() - start) / 1_000_000);
+        return report;
+    }
+
+    /**
+     * Returns the conflicts between {@code rule} and the other rules in the current index.
+     */
+    public List<RuleConflict> findConflicts(RegulatoryRule rule) {
+        List<RuleConflict> conflicts = new ArrayList<>();
+        for (RegulatoryRule other : evaluationService.currentIndex().findOverlapping(rule)) {
+            RuleConflict conflict = conflict(rule, other);
+            if (conflict != null) {
+                conflicts.add(conflict);
+            }
+        }
+        return conflicts;
+    }
+
+    private void check(RegulatoryRule rule, RegulatoryRule other, RuleConflictReport report) {
+        RuleConflict conflict = conflict(rule, other);
+        if (conflict == null) {
+            return;
+        }
+        report.setConflictCount(report.getConflictCount() + 1);
+        if (report.getConflicts().size() < maxReported) {
+            report.getConflicts().add(conflict);
+        } else {
+            report.setConflictsTruncated(true);
+        }
+    }
+
+    private static RuleConflict conflict(RegulatoryRule rule, RegulatoryRule other) {
+        Map<String, List<Integer>> limits = null;
+        for (Map.Entry<String, Function<RegulatoryRule, Integer>> limit : LIMITS.entrySet()) {
+            Integer value = limit.getValue().apply(rule);
+            Integer otherValue = limit.getValue().apply(other);
+            if (value != null && otherValue != null && !Objects.equals(value, otherValue)) {
+                if (limits == null) {
+                    limits = new LinkedHashMap<>();
+                }
+                limits.put(limit.getKey(), List.of(value, otherValue));
+            }
+        }
+        return limits == null ? null : new RuleConflict(rule.getId(), rule.getSequenceNumber(),
+                other.getId(), other.getSequenceNumber(), limits);
+    }
+
+    private static class Entry {
+        private final RegulatoryRule rule;
+        private final String[] values;
+
+        Entry(RegulatoryRule rule, String[] values) {
+            this.rule = rule;
+            this.values = values;
+        }
+
+        List<String> key(int mask) {
+            String[] key = new String[Integer.bitCount(mask)];
+            int next = 0;
+            for (int dimension = 0; dimension < values.length; dimension++) {
+                if ((mask & (1 << dimension)) != 0) {
+                    key[next++] = values[dimension];
+                }
+            }
+            return Arrays.asList(key);
+        }
+    }
+}
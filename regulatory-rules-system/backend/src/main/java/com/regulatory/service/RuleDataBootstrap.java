@@ -0,0 +1,138 @@
+package com.regulatory.service;
+
+import com.regulatory.model.RegulatoryRule;
+import com.regulatory.repository.RegulatoryRulesRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonDocument;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Loads the rule set once at startup for every in-memory view and then starts the change stream.
+ *
+ * <p>With snapshots enabled (and change streams available to catch up), the rule set is read from the
+ * local snapshot file and the change stream resumes from the token stored with it, so a restart only
+ * replays the writes made since the snapshot instead of reading the whole collection. Snapshots are
+ * rewritten periodically when rules have changed, and at least every refresh interval so that their
+ * token stays within the oplog window.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RuleDataBootstrap {
+
+    private final RegulatoryRulesRepository repository;
+    private final RuleChangeStreamListener changeStreamListener;
+    private final RuleEvaluationService evaluationService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${rules.snapshot.enabled:false}")
+    private boolean snapshotEnabled;
+
+    @Value("${rules.snapshot.path:data/rules.snapshot}")
+    private String snapshotPath;
+
+    @Value("${rules.snapshot.refresh-interval-ms:3600000}")
+    private long refreshIntervalMillis;
+
+    private volatile boolean started;
+    private volatile boolean dirty;
+    private volatile Instant lastSnapshot = Instant.EPOCH;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        BsonDocument resumeFrom;
+        long start = System.nanoTime();
+        RuleSnapshot snapshot = snapshotsUsable() ? readSnapshot() : null;
+        if (snapshot != null) {
+            eventPublisher.publishEvent(new RuleSetLoadedEvent(snapshot.getRules()));
+            resumeFrom = snapshot.getResumeToken();
+            lastSnapshot = snapshot.getCreatedAt();
+            log.info("Loaded {} rules from the snapshot of {} in {} ms", snapshot.getRules().size(),
+                    snapshot.getCreatedAt(), (System.nanoTime() - start) / 1_000_000);
+        } else {
+            // Take the position first: changes made during the load are then replayed, not lost
+            resumeFrom = changeStreamListener.currentPosition();
+            loadFromDatabase();
+        }
+        changeStreamListener.start(resumeFrom, this::loadFromDatabase);
+        started = true;
+    }
+
+    @EventListener
+    public void onRulesChanged(RuleChangedEvent event) {
+        dirty = true;
+    }
+
+    @Scheduled(fixedDelayString = "${rules.snapshot.interval-ms:60000}",
+            initialDelayString = "${rules.snapshot.interval-ms:60000}")
+    public void writeSnapshot() {
+        if (!started || !snapshotsUsable()) {
+            return;
+        }
+        boolean stale = Duration.between(lastSnapshot, Instant.now()).toMillis() >= refreshIntervalMillis;
+        if (!dirty && !stale) {
+            return;
+        }
+        // Read the token before the rules: the rules are then at least as new as the token, and
+        // replaying changes that are already included is harmless
+        BsonDocument token = changeStreamListener.getResumeToken();
+        if (token == null) {
+            return;
+        }
+        dirty = false;
+        List<RegulatoryRule> rules = evaluationService.currentIndex().getRules();
+        Instant now = Instant.now();
+        try {
+            long start = System.nanoTime();
+            new RuleSnapshot(rules, token, now).writeTo(Paths.get(snapshotPath));
+            lastSnapshot = now;
+            log.info("Wrote rule snapshot with {} rules in {} ms", rules.size(), (System.nanoTime() - start) / 1_000_000);
+        } catch (IOException e) {
+            dirty = true;
+            log.warn("Could not write rule snapshot to {}: {}", snapshotPath, e.getMessage());
+        }
+    }
+
+    private void loadFromDatabase() {
+        long start = System.nanoTime();
+        List<RegulatoryRule> rules = repository.findAll();
+        eventPublisher.publishEvent(new RuleSetLoadedEvent(rules));
+        dirty = true;
+        log.info("Loaded {} rules from the database in {} ms", rules.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * A snapshot can only be trusted if the change stream can bring it up to date.
+     */
+    private boolean snapshotsUsable() {
+        return snapshotEnabled && changeStreamListener.isEnabled();
+    }
+
+    private RuleSnapshot readSnapshot() {
+        Path path = Paths.get(snapshotPath);
+        if (!Files.exists(path)) {
+            return null;
+        }
+        try {
+            RuleSnapshot snapshot = RuleSnapshot.readFrom(path);
+            return snapshot.getResumeToken() != null ? snapshot : null;
+        } catch (IOException | RuntimeException e) {
+            log.warn("Ignoring unreadable rule snapshot {}: {}", path, e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.regulatory.service;
+
+import com.regulatory.model.RuleEvaluationRequest;
+import com.regulatory.model.RuleEvaluationResult;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Evaluates requests against an in-memory {@link RuleMatchIndex}. The index is rebuilt off to the side
+ * on every rule change and then published with a single volatile write, so evaluations never block.
+ */
+@Slf4j
+@Service
+public class RuleEvaluationService {
+
+    private volatile RuleMatchIndex index = RuleMatchIndex.build(List.of());
+
+    @EventListener
+    public synchronized void onRuleSetLoaded(RuleSetLoadedEvent event) {
+        index = RuleMatchIndex.build(event.getRules());
+        log.info("Built rule match index with {} rules", index.size());
+    }
+
+    @EventListener
+    public synchronized void onRulesChanged(RuleChangedEvent event) {
+        index = index.withChanges(event.getRules(), event.getRemovedIds());
+    }
+
+    public RuleMatchIndex currentIndex() {
+        return index;
+    }
+
+    public RuleEvaluationResult evaluate(RuleEvaluationRequest request) {
+        return index.evaluate(request);
+    }
+}
@@ -0,0 +1,350 @@
+package com.regulatory.service;
+
+import com.regulatory.config.CacheConfig;
+import com.regulatory.config.WorkloadClass;
+import com.regulatory.exception.WorkloadRejectedException;
+import com.regulatory.model.RegulatoryRule;
+import com.regulatory.model.RuleExportJob;
+import com.regulatory.repository.RegulatoryRulesRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVPrinter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.interceptor.SimpleKey;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Runs CSV extracts in the background. A job splits the sequenceNumber key space into ranges, scans
+ * them in parallel into part files and joins the parts into one spooled file that can be downloaded
+ * in byte ranges until it expires. A request for the same filters shares the job as long as no rule
+ * was written since it started. At most {@code export.jobs.max-queued} jobs are queued or running at
+ * once; further submissions are rejected with a 503 until one finishes. Jobs live in this node's memory,
+ * so their status and file are only available from the node that accepted them.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RuleExportService {
+
+    private static final CSVFormat PART_FORMAT = RegulatoryRuleCsv.FORMAT.builder().setSkipHeaderRecord(true).build();
+
+    private final RegulatoryRulesRepository repository;
+    private final RuleReadCoalescer coalescer;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+
+    @Value("${export.jobs.directory:data/exports}")
+    private String directory;
+
+    @Value("${export.jobs.parallelism:4}")
+    private int parallelism;
+
+    @Value("${export.jobs.max-running:2}")
+    private int maxRunning;
+
+    @Value("${export.jobs.max-queued:8}")
+    private int maxQueued;
+
+    @Value("${export.jobs.retry-after-seconds:30}")
+    private long retryAfterSeconds;
+
+    @Value("${export.jobs.ttl-seconds:3600}")
+    private long ttlSeconds;
+
+    @Value("${export.batch-size:500}")
+    private int batchSize;
+
+    private Path exportDirectory;
+    private ExecutorService jobExecutor;
+    private ExecutorService rangeExecutor;
+
+    @PostConstruct
+    public void init() throws IOException {
+        exportDirectory = Paths.get(directory).toAbsolutePath();
+        Files.createDirectories(exportDirectory);
+        // Jobs do not survive a restart, so files left by a previous run can never be downloaded
+        try (DirectoryStream<Path> leftovers = Files.newDirectoryStream(exportDirectory, "*.{csv,part}")) {
+            for (Path file : leftovers) {
+                Files.deleteIfExists(file);
+            }
+        }
+        jobExecutor = Executors.newFixedThreadPool(maxRunning, namedThreads("rule-export-job"));
+        rangeExecutor = Executors.newFixedThreadPool(parallelism, namedThreads("rule-export-range"));
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        jobExecutor.shutdownNow();
+        rangeExecutor.shutdownNow();
+        jobExecutor.awaitTermination(10, TimeUnit.SECONDS);
+        rangeExecutor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Starts an export of the rules matching the filters, or returns the job that is already exporting
+     * the same rules.
+     *
+     * @throws WorkloadRejectedException if {@code export.jobs.max-queued} jobs are already queued or running
+     */
+    public synchronized RuleExportJob submit(String ruleType, String mdState, String shipToState, String channel) {
+        SimpleKey key = CacheConfig.queryKey(ruleType, mdState, shipToState, channel);
+        long generation = coalescer.generation();
+        for (Job job : jobs.values()) {
+            if (job.key.equals(key) && job.generation == generation && job.isReusable()) {
+                meterRegistry.counter("rules.export.jobs.shared").increment();
+                return job.view();
+            }
+        }
+
+        // The executor queue is unbounded, so the limit on waiting work is enforced here
+        if (jobs.values().stream().filter(Job::isActive).count() >= maxQueued) {
+            meterRegistry.counter("rules.export.jobs.rejected").increment();
+            throw new WorkloadRejectedException(WorkloadClass.EXPORT, retryAfterSeconds);
+        }
+
+        Job job = new Job(UUID.randomUUID().toString(), key, generation, ruleType, mdState, shipToState, channel);
+        jobs.put(job.id, job);
+        jobExecutor.execute(() -> run(job));
+        return job.view();
+    }
+
+    public Optional<RuleExportJob> getJob(String id) {
+        return Optional.ofNullable(jobs.get(id)).map(Job::view);
+    }
+
+    /**
+     * Returns the file of the job if it has completed.
+     */
+    public Optional<Path> getFile(String id) {
+        Job job = jobs.get(id);
+        return job != null && job.view().getStatus() == RuleExportJob.Status.COMPLETED
+                ? Optional.of(job.file)
+                : Optional.empty();
+    }
+
+    @Scheduled(fixedDelayString = "${export.jobs.cleanup-interval-ms:60000}")
+    public void removeExpiredJobs() {
+        Instant now = Instant.now();
+        jobs.values().removeIf(job -> {
+            Instant expiresAt = job.view().getExpiresAt();
+            if (expiresAt == null || expiresAt.isAfter(now)) {
+                return false;
+            }
+            try {
+                Files.deleteIfExists(job.file);
+            } catch (IOException e) {
+                log.warn("Could not delete export file {}", job.file, e);
+            }
+            log.debug("Removed expired export job {}", job.id);
+            return true;
+        });
+    }
+
+    private void run(Job job) {
+        long started = System.nanoTime();
+        List<Path> parts = new ArrayList<>();
+        try {
+            List<String> boundaries = repository.findSequenceNumberBoundaries(job.ruleType, job.mdState,
+                    job.shipToState, job.channel, parallelism);
+            job.start(boundaries.size() + 1);
+
+            List<CompletableFuture<Long>> scans = new ArrayList<>();
+            for (int i = 0; i <= boundaries.size(); i++) {
+                String from = i == 0 ? null : boundaries.get(i - 1);
+                String to = i == boundaries.size() ? null : boundaries.get(i);
+                Path part = exportDirectory.resolve(job.id + "-" + i + ".part");
+                parts.add(part);
+                // Only the first part carries the header, so the parts can be joined as they are
+                CSVFormat format = i == 0 ? RegulatoryRuleCsv.FORMAT : PART_FORMAT;
+                scans.add(CompletableFuture.supplyAsync(() -> scanRange(job, from, to, part, format), rangeExecutor));
+            }
+            // Wait for every scan, even after a failure, so no part file is written after the cleanup
+            CompletableFuture.allOf(scans.toArray(new CompletableFuture[0])).join();
+            long rows = 0;
+            for (CompletableFuture<Long> scan : scans) {
+                rows += scan.join();
+            }
+
+            Path spool = exportDirectory.resolve(job.id + ".part");
+            try (FileChannel target = FileChannel.open(spool, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                for (Path part : parts) {
+                    try (FileChannel source = FileChannel.open(part, StandardOpenOption.READ)) {
+                        long position = 0;
+                        long size = source.size();
+                        while (position < size) {
+                            position += source.transferTo(position, size - position, target);
+                        }
+                    }
+                }
+                target.force(true);
+            }
+            parts.add(spool);
+            Files.move(spool, job.file, StandardCopyOption.ATOMIC_MOVE);
+            job.complete(rows, Files.size(job.file), Instant.now().plusSeconds(ttlSeconds));
+            meterRegistry.timer("rules.export.jobs", "status", "completed")
+                    .record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            log.info("Export job {} wrote {} rules in {} ranges ({} bytes) in {} ms", job.id, rows, parts.size() - 1,
+                    Files.size(job.file), Duration.ofNanos(System.nanoTime() - started).toMillis());
+        } catch (Exception e) {
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            job.fail(cause.getMessage(), Instant.now().plusSeconds(ttlSeconds));
+            meterRegistry.timer("rules.export.jobs", "status", "failed")
+                    .record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            log.error("Export job {} failed", job.id, cause);
+        } finally {
+            for (Path part : parts) {
+                try {
+                    Files.deleteIfExists(part);
+                } catch (IOException e) {
+                    log.warn("Could not delete export part {}", part, e);
+                }
+            }
+        }
+    }
+
+    private long scanRange(Job job, String from, String to, Path part, CSVFormat format) {
+        long rows = 0;
+        try (Stream<RegulatoryRule> rules = repository.streamBySequenceRange(job.ruleType, job.mdState,
+                 job.shipToState, job.channel, from, to, batchSize);
+             Writer writer = Files.newBufferedWriter(part, StandardCharsets.UTF_8);
+             CSVPrinter printer = new CSVPrinter(writer, format)) {
+            Iterator<RegulatoryRule> iterator = rules.iterator();
+            while (iterator.hasNext()) {
+                RegulatoryRuleCsv.printRecord(printer, iterator.next());
+                rows++;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        job.rangeCompleted();
+        return rows;
+    }
+
+    private static ThreadFactory namedThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private final class Job {
+        private final String id;
+        private final SimpleKey key;
+        private final long generation;
+        private final String ruleType;
+        private final String mdState;
+        private final String shipToState;
+        private final String channel;
+        private final Path file;
+        private final Instant createdAt = Instant.now();
+
+        private RuleExportJob.Status status = RuleExportJob.Status.QUEUED;
+        private int ranges;
+        private int completedRanges;
+        private long rowCount;
+        private long sizeBytes;
+        private String error;
+        private Instant completedAt;
+        private Instant expiresAt;
+
+        Job(String id, SimpleKey key, long generation, String ruleType, String mdState, String shipToState,
+            String channel) {
+            this.id = id;
+            this.key = key;
+            this.generation = generation;
+            this.ruleType = ruleType;
+            this.mdState = mdState;
+            this.shipToState = shipToState;
+            this.channel = channel;
+            this.file = exportDirectory.resolve(id + ".csv");
+        }
+
+        synchronized boolean isReusable() {
+            return status != RuleExportJob.Status.FAILED && (expiresAt == null || expiresAt.isAfter(Instant.now()));
+        }
+
+        synchronized boolean isActive() {
+            return status == RuleExportJob.Status.QUEUED || status == RuleExportJob.Status.RUNNING;
+        }
+
+        synchronized void start(int ranges) {
+            this.status = RuleExportJob.Status.RUNNING;
+            this.ranges = ranges;
+        }
+
+        synchronized void rangeCompleted() {
+            completedRanges++;
+        }
+
+        synchronized void complete(long rowCount, long sizeBytes, Instant expiresAt) {
+            this.status = RuleExportJob.Status.COMPLETED;
+            this.rowCount = rowCount;
+            this.sizeBytes = sizeBytes;
+            this.completedAt = Instant.now();
+            this.expiresAt = expiresAt;
+        }
+
+        synchronized void fail(String error, Instant expiresAt) {
+            this.status = RuleExportJob.Status.FAILED;
+            this.error = error;
+            this.completedAt = Instant.now();
+            this.expiresAt = expiresAt;
+        }
+
+        synchronized RuleExportJob view() {
+            RuleExportJob view = new RuleExportJob();
+            view.setId(id);
+            view.setStatus(status);
+            view.setRuleType(ruleType);
+            view.setMdState(mdState);
+            view.setShipToState(shipToState);
+            view.setChannel(channel);
+            view.setRanges(ranges);
+            view.setCompletedRanges(completedRanges);
+            view.setRowCount(rowCount);
+            view.setSizeBytes(sizeBytes);
+            view.setError(error);
+            view.setCreatedAt(createdAt);
+            view.setCompletedAt(completedAt);
+            view.setExpiresAt(expiresAt);
+            return view;
+        }
+    }
+}
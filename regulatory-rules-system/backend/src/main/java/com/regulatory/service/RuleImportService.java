@@ -0,0 +1,273 @@
+package com.regulatory.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.regulatory.model.RegulatoryRule;
+import com.regulatory.model.RuleImportError;
+import com.regulatory.model.RuleImportResult;
+import com.regulatory.repository.RegulatoryRulesRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Imports rules from a CSV (same layout as the extract) or NDJSON stream. Rows are parsed lazily and
+ * handled in chunks: each chunk is validated in parallel, checked for sequence number clashes against
+ * the rest of the import and the database, and written with a single bulk insert.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RuleImportService {
+
+    private final RegulatoryRulesRepository repository;
+    private final RegulatoryRulesService rulesService;
+    private final RuleChangeFeedService changeFeedService;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${import.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${import.max-reported-errors:1000}")
+    private int maxReportedErrors;
+
+    public RuleImportResult importCsv(InputStream in, boolean dryRun, boolean ordered) throws IOException {
+        try (Reader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+             CSVParser parser = RegulatoryRuleCsv.PARSE_FORMAT.parse(reader)) {
+            List<String> missing = Arrays.stream(RegulatoryRuleCsv.HEADERS)
+                    .filter(header -> !parser.getHeaderMap().containsKey(header))
+                    .collect(Collectors.toList());
+            if (!missing.isEmpty()) {
+                throw new IllegalArgumentException("CSV header is missing columns: " + String.join(", ", missing));
+            }
+            Iterator<CSVRecord> records = parser.iterator();
+            return importRows(() -> {
+                CSVRecord record;
+                try {
+                    if (!records.hasNext()) {
+                        return null;
+                    }
+                    record = records.next();
+                } catch (IllegalStateException | UncheckedIOException e) {
+                    // The parser cannot recover from a broken record (e.g. an unclosed quote), so the import stops.
+                    // commons-csv 1.9 wraps the IOException in an IllegalStateException, later versions in an
+                    // UncheckedIOException.
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    throw new IllegalArgumentException("Malformed CSV at row " + (parser.getRecordNumber() + 1)
+                            + ": " + cause.getMessage());
+                }
+                try {
+                    return ParsedRow.parsed(RegulatoryRuleCsv.parseRecord(record));
+                } catch (IllegalArgumentException e) {
+                    return ParsedRow.failed(e.getMessage());
+                }
+            }, dryRun, ordered);
+        }
+    }
+
+    public RuleImportResult importNdjson(InputStream in, boolean dryRun, boolean ordered) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            return importRows(() -> {
+                String line;
+                do {
+                    line = reader.readLine();
+                } while (line != null && line.isBlank());
+                if (line == null) {
+                    return null;
+                }
+                try {
+                    return ParsedRow.parsed(objectMapper.readValue(line, RegulatoryRule.class));
+                } catch (JsonProcessingException e) {
+                    return ParsedRow.failed("Malformed JSON: " + e.getOriginalMessage());
+                }
+            }, dryRun, ordered);
+        }
+    }
+
+    private RuleImportResult importRows(RowSource source, boolean dryRun, boolean ordered) throws IOException {
+        RuleImportResult result = new RuleImportResult();
+        result.setDryRun(dryRun);
+        Set<String> seenSequenceNumbers = new HashSet<>();
+        List<ImportRow> chunk = new ArrayList<>(chunkSize);
+        boolean stopped = false;
+
+        ParsedRow parsed;
+        while (!stopped && (parsed = source.next()) != null) {
+            chunk.add(new ImportRow(result.getTotalRows() + 1, parsed));
+            result.setTotalRows(result.getTotalRows() + 1);
+            if (chunk.size() == chunkSize) {
+                stopped = processChunk(chunk, seenSequenceNumbers, result, dryRun, ordered);
+                chunk = new ArrayList<>(chunkSize);
+            }
+        }
+        if (!stopped && !chunk.isEmpty()) {
+            processChunk(chunk, seenSequenceNumbers, result, dryRun, ordered);
+        }
+
+        log.info("Imported {} of {} rules ({} failed, dry run: {})",
+                result.getImportedRows(), result.getTotalRows(), result.getFailedRows(), dryRun);
+        return result;
+    }
+
+    /**
+     * Validates and writes one chunk. Returns true when an ordered import must stop.
+     */
+    private boolean processChunk(List<ImportRow> chunk, Set<String> seenSequenceNumbers, RuleImportResult result,
+                                 boolean dryRun, boolean ordered) {
+        // Bean validation and field relationship checks are independent per row
+        chunk.parallelStream()
+                .filter(row -> row.rule != null)
+                .forEach(this::validate);
+
+        // Sequence numbers must be unique within the import and against the database
+        for (ImportRow row : chunk) {
+            if (row.rule != null && row.errors.isEmpty() && !seenSequenceNumbers.add(row.rule.getSequenceNumber())) {
+                row.errors.add("Duplicate sequence number in import");
+            }
+        }
+        Set<String> existing = repository.findExistingSequenceNumbers(chunk.stream()
+                .filter(row -> row.rule != null && row.errors.isEmpty())
+                .map(row -> row.rule.getSequenceNumber())
+                .collect(Collectors.toList()));
+        List<ImportRow> valid = new ArrayList<>(chunk.size());
+        for (ImportRow row : chunk) {
+            if (row.rule != null && row.errors.isEmpty() && existing.contains(row.rule.getSequenceNumber())) {
+                row.errors.add("Sequence number already exists");
+            }
+            if (row.errors.isEmpty()) {
+                valid.add(row);
+            } else if (ordered) {
+                // An ordered import writes everything before the first bad row and nothing after it
+                break;
+            }
+        }
+
+        if (!dryRun) {
+            List<RegulatoryRule> rules = valid.stream().map(row -> row.rule).collect(Collectors.toList());
+            // The whole chunk shares one change sequence number; the feed orders ties by id
+            long changeSeq = rules.isEmpty() ? 0 : changeFeedService.reserveForLongWrite();
+            rules.forEach(rule -> {
+                rule.setId(new ObjectId().toHexString());
+                rule.setVersion(0L);
+                rule.setChangeSeq(changeSeq);
+            });
+            Map<Integer, String> failures;
+            try {
+                failures = repository.bulkInsert(rules, ordered);
+            } finally {
+                if (!rules.isEmpty()) {
+                    changeFeedService.release(changeSeq);
+                }
+            }
+            failures.forEach((index, message) -> valid.get(index).errors.add(message));
+
+            List<RegulatoryRule> inserted = new ArrayList<>(rules.size());
+            for (int i = 0; i < valid.size(); i++) {
+                if (failures.containsKey(i)) {
+                    if (ordered) {
+                        break;
+                    }
+                } else {
+                    inserted.add(rules.get(i));
+                }
+            }
+            if (!inserted.isEmpty()) {
+                eventPublisher.publishEvent(new RuleChangedEvent(inserted));
+            }
+            result.setImportedRows(result.getImportedRows() + inserted.size());
+        } else {
+            result.setImportedRows(result.getImportedRows() + valid.size());
+        }
+
+        for (ImportRow row : chunk) {
+            if (!row.errors.isEmpty()) {
+                result.setFailedRows(result.getFailedRows() + 1);
+                if (result.getErrors().size() < maxReportedErrors) {
+                    result.getErrors().add(new RuleImportError(row.number,
+                            row.rule != null ? row.rule.getSequenceNumber() : null, row.errors));
+                } else {
+                    result.setErrorsTruncated(true);
+                }
+                if (ordered) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private void validate(ImportRow row) {
+        for (ConstraintViolation<RegulatoryRule> violation : validator.validate(row.rule)) {
+            row.errors.add(violation.getPropertyPath() + ": " + violation.getMessage());
+        }
+        if (row.errors.isEmpty()) {
+            try {
+                rulesService.validateFieldRelationships(row.rule);
+            } catch (IllegalArgumentException e) {
+                row.errors.add(e.getMessage());
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface RowSource {
+        ParsedRow next() throws IOException;
+    }
+
+    private static class ParsedRow {
+        private final RegulatoryRule rule;
+        private final String error;
+
+        private ParsedRow(RegulatoryRule rule, String error) {
+            this.rule = rule;
+            this.error = error;
+        }
+
+        static ParsedRow parsed(RegulatoryRule rule) {
+            return new ParsedRow(rule, null);
+        }
+
+        static ParsedRow failed(String error) {
+            return new ParsedRow(null, error);
+        }
+    }
+
+    private static class ImportRow {
+        private final long number;
+        private final RegulatoryRule rule;
+        private final List<String> errors = new ArrayList<>();
+
+        ImportRow(long number, ParsedRow parsed) {
+            this.number = number;
+            this.rule = parsed.rule;
+            if (parsed.error != null) {
+                errors.add(parsed.error);
+            }
+        }
+    }
+}
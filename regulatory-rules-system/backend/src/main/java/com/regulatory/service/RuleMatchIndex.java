@@ -0,0 +1,216 @@
+package com.regulatory.service;
+
+import com.regulatory.model.RegulatoryRule;
+import com.regulatory.model.RuleEvaluationRequest;
+import com.regulatory.model.RuleEvaluationResult;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Immutable index over a rule set keyed by the rule match dimensions. For every dimension it keeps
+ * one bitmap of rule positions per value plus a bitmap of the rules that leave the dimension empty
+ * (wildcards), so matching a request is a handful of bitmap intersections.
+ * <p>
+ * Instances are never modified; {@link #withChanges(Collection, Collection)} returns a new index, which lets
+ * readers use a published index without locking.
+ */
+public final class RuleMatchIndex {
+
+    private static final List<Function<RegulatoryRule, String>> RULE_DIMENSIONS = List.of(
+            RegulatoryRule::getRuleType,
+            RegulatoryRule::getMdState,
+            RegulatoryRule::getShipToState,
+            RegulatoryRule::getChannel,
+            RegulatoryRule::getZipCode,
+            RegulatoryRule::getRegCatCode,
+            RegulatoryRule::getDrugSchedule
+    );
+
+    private static final List<Function<RuleEvaluationRequest, String>> REQUEST_DIMENSIONS = List.of(
+            RuleEvaluationRequest::getRuleType,
+            RuleEvaluationRequest::getMdState,
+            RuleEvaluationRequest::getShipToState,
+            RuleEvaluationRequest::getChannel,
+            RuleEvaluationRequest::getZipCode,
+            RuleEvaluationRequest::getRegCatCode,
+            RuleEvaluationRequest::getDrugSchedule
+    );
+
+    private static final int DIMENSION_COUNT = RULE_DIMENSIONS.size();
+
+    private final RegulatoryRule[] rules;
+    private final List<Map<String, BitSet>> valueBits;
+    private final BitSet[] wildcardBits;
+
+    private RuleMatchIndex(RegulatoryRule[] rules) {
+        this.rules = rules;
+        this.valueBits = new ArrayList<>(DIMENSION_COUNT);
+        this.wildcardBits = new BitSet[DIMENSION_COUNT];
+
+        for (int dimension = 0; dimension < DIMENSION_COUNT; dimension++) {
+            Map<String, BitSet> bitsByValue = new HashMap<>();
+            BitSet wildcards = new BitSet(rules.length);
+            Function<RegulatoryRule, String> extractor = RULE_DIMENSIONS.get(dimension);
+            for (int position = 0; position < rules.length; position++) {
+                String value = normalize(extractor.apply(rules[position]));
+                if (value == null) {
+                    wildcards.set(position);
+                } else {
+                    bitsByValue.computeIfAbsent(value, v -> new BitSet(rules.length)).set(position);
+                }
+            }
+            valueBits.add(bitsByValue);
+            wildcardBits[dimension] = wildcards;
+        }
+    }
+
+    public static RuleMatchIndex build(Collection<RegulatoryRule> rules) {
+        return new RuleMatchIndex(rules.toArray(new RegulatoryRule[0]));
+    }
+
+    /**
+     * Returns a new index in which the given rules replace any existing rules with the same id and
+     * the removed ids are dropped.
+     */
+    public RuleMatchIndex withChanges(Collection<RegulatoryRule> changed, Collection<String> removedIds) {
+        Map<String, RegulatoryRule> byId = new LinkedHashMap<>();
+        for (RegulatoryRule rule : rules) {
+            byId.put(rule.getId(), rule);
+        }
+        for (RegulatoryRule rule : changed) {
+            byId.put(rule.getId(), rule);
+        }
+        removedIds.forEach(byId::remove);
+        return build(byId.values());
+    }
+
+    public int size() {
+        return rules.length;
+    }
+
+    public List<RegulatoryRule> getRules() {
+        return List.of(rules);
+    }
+
+    /**
+     * Finds the rules that apply to the request. A rule applies when each of its dimensions is either
+     * empty or equal to the request value; a request that leaves a dimension empty only matches
+     * rules that are wildcards for it.
+     */
+    public List<RegulatoryRule> findMatches(RuleEvaluationRequest request) {
+        BitSet matches = new BitSet(rules.length);
+        matches.set(0, rules.length);
+
+        for (int dimension = 0; dimension < DIMENSION_COUNT && !matches.isEmpty(); dimension++) {
+            String value = normalize(REQUEST_DIMENSIONS.get(dimension).apply(request));
+            BitSet bits = value == null ? null : valueBits.get(dimension).get(value);
+            if (bits == null) {
+                matches.and(wildcardBits[dimension]);
+            } else {
+                BitSet candidates = (BitSet) bits.clone();
+                candidates.or(wildcardBits[dimension]);
+                matches.and(candidates);
+            }
+        }
+
+        List<RegulatoryRule> result = new ArrayList<>(matches.cardinality());
+        for (int position = matches.nextSetBit(0); position >= 0; position = matches.nextSetBit(position + 1)) {
+            result.add(rules[position]);
+        }
+        return result;
+    }
+
+    /**
+     * Finds the other rules that can apply to some request together with {@code rule}: on every dimension
+     * the two rules have the same value or at least one of them is empty.
+     */
+    public List<RegulatoryRule> findOverlapping(RegulatoryRule rule) {
+        BitSet matches = new BitSet(rules.length);
+        matches.set(0, rules.length);
+
+        for (int dimension = 0; dimension < DIMENSION_COUNT && !matches.isEmpty(); dimension++) {
+            String value = normalize(RULE_DIMENSIONS.get(dimension).apply(rule));
+            if (value == null) {
+                continue;
+            }
+            BitSet bits = valueBits.get(dimension).get(value);
+            if (bits == null) {
+                matches.and(wildcardBits[dimension]);
+            } else {
+                BitSet candidates = (BitSet) bits.clone();
+                candidates.or(wildcardBits[dimension]);
+                matches.and(candidates);
+            }
+        }
+
+        List<RegulatoryRule> result = new ArrayList<>(matches.cardinality());
+        for (int position = matches.nextSetBit(0); position >= 0; position = matches.nextSetBit(position + 1)) {
+            if (!rules[position].getId().equals(rule.getId())) {
+                result.add(rules[position]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the rule's normalized match dimension values, in index order; null marks a wildcard.
+     */
+    static String[] dimensionValues(RegulatoryRule rule) {
+        String[] values = new String[DIMENSION_COUNT];
+        for (int dimension = 0; dimension < DIMENSION_COUNT; dimension++) {
+            values[dimension] = normalize(RULE_DIMENSIONS.get(dimension).apply(rule));
+        }
+        return values;
+    }
+
+    /**
+     * Evaluates the request against the matching rules. The effective limits are the most restrictive
+     * values across all matching rules.
+     */
+    public RuleEvaluationResult evaluate(RuleEvaluationRequest request) {
+        RuleEvaluationResult result = new RuleEvaluationResult();
+        for (RegulatoryRule rule : findMatches(request)) {
+            result.getMatchedRuleIds().add(rule.getId());
+            result.getMatchedSequenceNumbers().add(rule.getSequenceNumber());
+            result.setMaxDaysSupply(min(result.getMaxDaysSupply(), rule.getMaxDaysSupply()));
+            result.setMaxQuantity(min(result.getMaxQuantity(), rule.getMaxQuantity()));
+            result.setMaxRefill(min(result.getMaxRefill(), rule.getMaxRefill()));
+            result.setMaxDaysAllowedToExpiryDate(
+                    min(result.getMaxDaysAllowedToExpiryDate(), rule.getMaxDaysAllowedToExpiryDate()));
+        }
+
+        checkLimit(result, request.getDaysSupply(), result.getMaxDaysSupply(), "Days supply exceeds max days supply");
+        checkLimit(result, request.getQuantity(), result.getMaxQuantity(), "Quantity exceeds max quantity");
+        checkLimit(result, request.getRefillNumber(), result.getMaxRefill(), "Refill number exceeds max refill");
+        result.setAllowed(result.getViolations().isEmpty());
+        return result;
+    }
+
+    private static void checkLimit(RuleEvaluationResult result, Integer requested, Integer limit, String violation) {
+        if (requested != null && limit != null && requested > limit) {
+            result.getViolations().add(violation);
+        }
+    }
+
+    private static Integer min(Integer current, Integer candidate) {
+        if (candidate == null) {
+            return current;
+        }
+        return current == null ? candidate : Math.min(current, candidate);
+    }
+
+    private static String normalize(String value) {
+        if (value == null) {
+            return null;
+        }
+        String trimmed = value.trim();
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+}
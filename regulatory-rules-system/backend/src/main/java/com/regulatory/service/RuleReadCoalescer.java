@@ -0,0 +1,94 @@
+package com.regulatory.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.interceptor.SimpleKey;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Lets concurrent identical reads share one database call. A call is shared only with requests that
+ * arrive while it runs and under the same write generation: every rule change or reload starts a new
+ * generation, so a request that follows a write never joins a call that may have read the data from
+ * before it. A request waits for the shared call at most {@code coalescing.max-wait-ms} and then
+ * reads on its own.
+ */
+@Component
+@RequiredArgsConstructor
+public class RuleReadCoalescer {
+
+    private final MeterRegistry meterRegistry;
+
+    private final AtomicLong generation = new AtomicLong();
+    private final Map<SimpleKey, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    @Value("${coalescing.max-wait-ms:2000}")
+    private long maxWaitMillis;
+
+    @EventListener
+    public void onRulesChanged(RuleChangedEvent event) {
+        generation.incrementAndGet();
+    }
+
+    @EventListener
+    public void onRuleSetLoaded(RuleSetLoadedEvent event) {
+        generation.incrementAndGet();
+    }
+
+    /**
+     * Returns the current write generation; it changes whenever a rule is written or the rule set is reloaded.
+     * Cached query results are keyed by it as well (see {@code CacheConfig#ruleQueryKeyGenerator}).
+     */
+    public long generation() {
+        return generation.get();
+    }
+
+    /**
+     * Runs the loader, or waits for the identical call that is already running and returns its result.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String operation, Object key, Supplier<T> loader) {
+        SimpleKey callKey = new SimpleKey(operation, key, generation.get());
+        CompletableFuture<Object> call = new CompletableFuture<>();
+        CompletableFuture<Object> shared = inFlight.putIfAbsent(callKey, call);
+        if (shared == null) {
+            try {
+                T result = loader.get();
+                call.complete(result);
+                return result;
+            } catch (RuntimeException | Error e) {
+                call.completeExceptionally(e);
+                throw e;
+            } finally {
+                inFlight.remove(callKey, call);
+            }
+        }
+
+        try {
+            T result = (T) shared.get(maxWaitMillis, TimeUnit.MILLISECONDS);
+            meterRegistry.counter("rules.coalescing.shared", "operation", operation).increment();
+            return result;
+        } catch (TimeoutException e) {
+            meterRegistry.counter("rules.coalescing.timeouts", "operation", operation).increment();
+            return loader.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a shared read", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
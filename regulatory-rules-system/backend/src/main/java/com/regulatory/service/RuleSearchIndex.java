@@ -0,0 +1,310 @@
+package com.regulatory.service;
+
+import com.regulatory.model.RegulatoryRule;
+import com.regulatory.model.RuleSearchHit;
+import com.regulatory.model.RuleSearchResults;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * Case-insensitive substring index over the free-text fields of the rules. Every value is split into
+ * its three-character substrings (trigrams), and each trigram keeps a bitmap of the rule slots whose
+ * values contain it; the one- and two-character prefixes of every value get bitmaps too, so short
+ * queries match by prefix. A search intersects the bitmaps of the query's trigrams and only checks the
+ * rules left over, so it never scans the rule set.
+ * <p>
+ * Unlike {@link RuleMatchIndex} the index is changed in place, since rebuilding it on every write would
+ * cost far more than the write itself. A read-write lock keeps searches consistent with updates.
+ */
+public final class RuleSearchIndex {
+
+    private static final int GRAM = 3;
+
+    private static final List<String> FIELDS = List.of(
+            "sequenceNumber", "zipCode", "regCatCode", "protocol", "userLocation");
+
+    private static final List<Function<RegulatoryRule, String>> EXTRACTORS = List.of(
+            RegulatoryRule::getSequenceNumber,
+            RegulatoryRule::getZipCode,
+            RegulatoryRule::getRegCatCode,
+            RegulatoryRule::getProtocol,
+            RegulatoryRule::getUserLocation);
+
+    private static final int EXACT = 3;
+    private static final int PREFIX = 2;
+    private static final int SUBSTRING = 1;
+
+    // Best match first: exact before prefix before substring, then by field order, then shorter values
+    private static final Comparator<Match> RANKING = Comparator.<Match>comparingInt(match -> -match.score)
+            .thenComparingInt(match -> match.field)
+            .thenComparingInt(match -> match.value.length())
+            .thenComparing(match -> match.rule.getSequenceNumber(), Comparator.nullsLast(Comparator.naturalOrder()));
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Integer> slotsById = new HashMap<>();
+    private final List<RegulatoryRule> rules = new ArrayList<>();
+    private final List<String[]> values = new ArrayList<>();
+    private final BitSet freeSlots = new BitSet();
+    private final Map<String, BitSet> trigrams = new HashMap<>();
+    private final Map<String, BitSet> prefixes = new HashMap<>();
+
+    /**
+     * Replaces the indexed rules with {@code rules}.
+     */
+    public void load(Collection<RegulatoryRule> rules) {
+        lock.writeLock().lock();
+        try {
+            slotsById.clear();
+            this.rules.clear();
+            values.clear();
+            freeSlots.clear();
+            trigrams.clear();
+            prefixes.clear();
+            rules.forEach(this::add);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Re-indexes the changed rules and drops the removed ids.
+     */
+    public void apply(Collection<RegulatoryRule> changed, Collection<String> removedIds) {
+        lock.writeLock().lock();
+        try {
+            for (RegulatoryRule rule : changed) {
+                remove(rule.getId());
+                add(rule);
+            }
+            removedIds.forEach(this::remove);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return slotsById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the rules with a text field containing {@code query} (starting with it, for queries shorter
+     * than three characters) and returns one page of them, best-ranked first. Each rule appears once, with
+     * its best-matching field.
+     */
+    public RuleSearchResults search(String query, int page, int size) {
+        String normalized = normalize(query);
+        // In long, so a far-off page gives an empty result rather than an overflowed offset
+        long offset = (long) page * size;
+        lock.readLock().lock();
+        try {
+            BitSet candidates = candidates(normalized);
+            int keep = (int) Math.min(offset + size, Integer.MAX_VALUE);
+            PriorityQueue<Match> best = new PriorityQueue<>(RANKING.reversed());
+            long matches = 0;
+            for (int slot = candidates.nextSetBit(0); slot >= 0; slot = candidates.nextSetBit(slot + 1)) {
+                int field = bestField(slot, normalized);
+                if (field < 0) {
+                    continue;
+                }
+                matches++;
+                // Keep only the top offset + size matches, so large result sets are never fully sorted
+                if (keep == 0) {
+                    continue;
+                }
+                String value = values.get(slot)[field];
+                int score = score(value, normalized);
+                if (best.size() == keep && !outranks(score, field, value, slot, best.peek())) {
+                    continue;
+                }
+                if (best.size() == keep) {
+                    best.poll();
+                }
+                best.add(new Match(rules.get(slot), field, value, score));
+            }
+            List<Match> ranked = new ArrayList<>(best);
+            ranked.sort(RANKING);
+            List<RuleSearchHit> hits = new ArrayList<>(size);
+            for (long i = offset; i < ranked.size(); i++) {
+                Match match = ranked.get((int) i);
+                hits.add(new RuleSearchHit(match.rule, FIELDS.get(match.field),
+                        EXTRACTORS.get(match.field).apply(match.rule), matchType(match.score)));
+            }
+            return new RuleSearchResults(hits, page, size, matches);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private BitSet candidates(String query) {
+        if (query.length() < GRAM) {
+            BitSet bits = prefixes.get(query);
+            return bits == null ? new BitSet() : bits;
+        }
+        BitSet candidates = null;
+        for (int i = 0; i + GRAM <= query.length(); i++) {
+            BitSet bits = trigrams.get(query.substring(i, i + GRAM));
+            if (bits == null) {
+                return new BitSet();
+            }
+            if (candidates == null) {
+                candidates = (BitSet) bits.clone();
+            } else {
+                candidates.and(bits);
+            }
+        }
+        return candidates;
+    }
+
+    /**
+     * Returns the field of the slot that matches the query best, or -1 if none matches.
+     */
+    private int bestField(int slot, String query) {
+        String[] ruleValues = values.get(slot);
+        int bestField = -1;
+        int bestScore = 0;
+        for (int field = 0; field < ruleValues.length && bestScore < EXACT; field++) {
+            String value = ruleValues[field];
+            int score = value == null ? 0 : score(value, query);
+            if (score > bestScore) {
+                bestField = field;
+                bestScore = score;
+            }
+        }
+        return bestField;
+    }
+
+    /**
+     * Same order as {@link #RANKING}, without building a {@link Match} for the candidate.
+     */
+    private boolean outranks(int score, int field, String value, int slot, Match other) {
+        if (score != other.score) {
+            return score > other.score;
+        }
+        if (field != other.field) {
+            return field < other.field;
+        }
+        if (value.length() != other.value.length()) {
+            return value.length() < other.value.length();
+        }
+        String sequenceNumber = rules.get(slot).getSequenceNumber();
+        String otherSequenceNumber = other.rule.getSequenceNumber();
+        return sequenceNumber != null && (otherSequenceNumber == null || sequenceNumber.compareTo(otherSequenceNumber) < 0);
+    }
+
+    private static int score(String value, String query) {
+        return value.equals(query) ? EXACT
+                : value.startsWith(query) ? PREFIX
+                : query.length() >= GRAM && value.contains(query) ? SUBSTRING
+                : 0;
+    }
+
+    private void add(RegulatoryRule rule) {
+        int slot = freeSlots.nextSetBit(0);
+        if (slot < 0) {
+            slot = rules.size();
+            rules.add(rule);
+            values.add(null);
+        } else {
+            freeSlots.clear(slot);
+            rules.set(slot, rule);
+        }
+        slotsById.put(rule.getId(), slot);
+
+        String[] ruleValues = new String[EXTRACTORS.size()];
+        for (int field = 0; field < ruleValues.length; field++) {
+            String value = normalize(EXTRACTORS.get(field).apply(rule));
+            if (value.isEmpty()) {
+                continue;
+            }
+            ruleValues[field] = value;
+            for (String key : keys(value, true)) {
+                trigrams.computeIfAbsent(key, k -> new BitSet()).set(slot);
+            }
+            for (String key : keys(value, false)) {
+                prefixes.computeIfAbsent(key, k -> new BitSet()).set(slot);
+            }
+        }
+        values.set(slot, ruleValues);
+    }
+
+    private void remove(String id) {
+        Integer slot = slotsById.remove(id);
+        if (slot == null) {
+            return;
+        }
+        for (String value : values.get(slot)) {
+            if (value == null) {
+                continue;
+            }
+            clear(trigrams, keys(value, true), slot);
+            clear(prefixes, keys(value, false), slot);
+        }
+        rules.set(slot, null);
+        values.set(slot, null);
+        freeSlots.set(slot);
+    }
+
+    private static void clear(Map<String, BitSet> index, List<String> keys, int slot) {
+        for (String key : keys) {
+            BitSet bits = index.get(key);
+            if (bits != null) {
+                bits.clear(slot);
+                if (bits.isEmpty()) {
+                    index.remove(key);
+                }
+            }
+        }
+    }
+
+    private static List<String> keys(String value, boolean trigramKeys) {
+        List<String> keys = new ArrayList<>();
+        if (trigramKeys) {
+            for (int i = 0; i + GRAM <= value.length(); i++) {
+                keys.add(value.substring(i, i + GRAM));
+            }
+        } else {
+            for (int length = 1; length < GRAM && length <= value.length(); length++) {
+                keys.add(value.substring(0, length));
+            }
+        }
+        return keys;
+    }
+
+    private static String matchType(int score) {
+        return score == EXACT ? "exact" : score == PREFIX ? "prefix" : "substring";
+    }
+
+    static String normalize(String value) {
+        return value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static class Match {
+        private final RegulatoryRule rule;
+        private final int field;
+        private final String value;
+        private final int score;
+
+        Match(RegulatoryRule rule, int field, String value, int score) {
+            this.rule = rule;
+            this.field = field;
+            this.value = value;
+            this.score = score;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.regulatory.service;
+
+import com.regulatory.model.RuleSearchResults;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+/**
+ * Search-as-you-type over the rule text fields, served from a {@link RuleSearchIndex} that follows
+ * the loaded rule set and every rule write.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RuleSearchService {
+
+    private final RuleSearchIndex index = new RuleSearchIndex();
+    private final MeterRegistry meterRegistry;
+
+    @Value("${search.max-page-size:100}")
+    private int maxPageSize;
+
+    @EventListener
+    public void onRuleSetLoaded(RuleSetLoadedEvent event) {
+        long start = System.nanoTime();
+        index.load(event.getRules());
+        log.info("Built rule search index with {} rules in {} ms", index.size(),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @EventListener
+    public void onRulesChanged(RuleChangedEvent event) {
+        index.apply(event.getRules(), event.getRemovedIds());
+    }
+
+    public RuleSearchResults search(String query, int page, int size) {
+        if (!StringUtils.hasText(query)) {
+            throw new IllegalArgumentException("Search query must not be blank");
+        }
+        if (page < 0) {
+            throw new IllegalArgumentException("Page must not be negative");
+        }
+        if (size < 1 || size > maxPageSize) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + maxPageSize);
+        }
+        Timer.Sample sample = Timer.start(meterRegistry);
+        RuleSearchResults results = index.search(query, page, size);
+        sample.stop(meterRegistry.timer("rules.search"));
+        return results;
+    }
+}
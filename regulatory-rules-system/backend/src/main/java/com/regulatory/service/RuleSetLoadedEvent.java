@@ -0,0 +1,21 @@
+package com.regulatory.service;
+
+import com.regulatory.model.RegulatoryRule;
+import lombok.Getter;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Published when the complete rule set has been (re)loaded, from a snapshot or from the database.
+ * In-memory views replace their contents with it; {@link RuleChangedEvent}s then apply later writes.
+ */
+@Getter
+public class RuleSetLoadedEvent {
+
+    private final List<RegulatoryRule> rules;
+
+    public RuleSetLoadedEvent(List<RegulatoryRule> rules) {
+        this.rules = Collections.unmodifiableList(rules);
+    }
+}
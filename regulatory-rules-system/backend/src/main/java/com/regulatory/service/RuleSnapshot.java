@@ -0,0 +1,212 @@
+package com.regulatory.service;
+
+import com.regulatory.model.RegulatoryRule;
+import lombok.Value;
+import org.bson.BsonDocument;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.BsonDocumentCodec;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * The full rule set together with the change stream resume token it corresponds to, in a compact
+ * binary file. Layout (big-endian):
+ * <pre>
+ * int magic, int formatVersion, long createdAtMillis,
+ * int tokenLength, byte[] token (raw BSON, empty when there is none),
+ * int stringCount, (int length, byte[] utf8) per string,
+ * int ruleCount, per rule: int string index per text field (-1 for null),
+ *     int per number field (Integer.MIN_VALUE for null), long version and long changeSeq
+ *     (Long.MIN_VALUE for null),
+ * long crc32 of everything before it
+ * </pre>
+ * Every distinct string is stored once, so repeated codes such as states cost four bytes per rule.
+ * Changing the field lists below requires a new {@link #FORMAT_VERSION}.
+ */
+@Value
+public class RuleSnapshot {
+
+    private static final int MAGIC = 0x5252534E;
+    private static final int FORMAT_VERSION = 2;
+    private static final int NULL_INDEX = -1;
+    private static final int NULL_INT = Integer.MIN_VALUE;
+    private static final long NULL_LONG = Long.MIN_VALUE;
+
+    private static final List<Function<RegulatoryRule, String>> TEXT_GETTERS = List.of(
+            RegulatoryRule::getId, RegulatoryRule::getSequenceNumber, RegulatoryRule::getRuleType,
+            RegulatoryRule::getMdState, RegulatoryRule::getShipToState, RegulatoryRule::getZipCode,
+            RegulatoryRule::getChannel, RegulatoryRule::getRegCatCode, RegulatoryRule::getDrugSchedule,
+            RegulatoryRule::getUserLocation, RegulatoryRule::getDispensingLocation, RegulatoryRule::getProtocol);
+
+    private static final List<BiConsumer<RegulatoryRule, String>> TEXT_SETTERS = List.of(
+            RegulatoryRule::setId, RegulatoryRule::setSequenceNumber, RegulatoryRule::setRuleType,
+            RegulatoryRule::setMdState, RegulatoryRule::setShipToState, RegulatoryRule::setZipCode,
+            RegulatoryRule::setChannel, RegulatoryRule::setRegCatCode, RegulatoryRule::setDrugSchedule,
+            RegulatoryRule::setUserLocation, RegulatoryRule::setDispensingLocation, RegulatoryRule::setProtocol);
+
+    private static final List<Function<RegulatoryRule, Integer>> NUMBER_GETTERS = List.of(
+            RegulatoryRule::getRefillNumber, RegulatoryRule::getQuantity, RegulatoryRule::getDaysSupply,
+            RegulatoryRule::getDaysAgo, RegulatoryRule::getMaxDaysSupply, RegulatoryRule::getMaxQuantity,
+            RegulatoryRule::getMaxRefill, RegulatoryRule::getMaxDaysAllowedToExpiryDate);
+
+    private static final List<BiConsumer<RegulatoryRule, Integer>> NUMBER_SETTERS = List.of(
+            RegulatoryRule::setRefillNumber, RegulatoryRule::setQuantity, RegulatoryRule::setDaysSupply,
+            RegulatoryRule::setDaysAgo, RegulatoryRule::setMaxDaysSupply, RegulatoryRule::setMaxQuantity,
+            RegulatoryRule::setMaxRefill, RegulatoryRule::setMaxDaysAllowedToExpiryDate);
+
+    List<RegulatoryRule> rules;
+    BsonDocument resumeToken;
+    Instant createdAt;
+
+    /**
+     * Writes the snapshot next to the target and then moves it into place, so a reader never sees a
+     * partially written file.
+     */
+    public void writeTo(Path path) throws IOException {
+        Path directory = path.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                write(Channels.newOutputStream(channel));
+                channel.force(true);
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private void write(OutputStream target) throws IOException {
+        Map<String, Integer> stringIndex = new HashMap<>();
+        List<String> strings = new ArrayList<>();
+        for (RegulatoryRule rule : rules) {
+            for (Function<RegulatoryRule, String> getter : TEXT_GETTERS) {
+                String value = getter.apply(rule);
+                if (value != null && stringIndex.putIfAbsent(value, strings.size()) == null) {
+                    strings.add(value);
+                }
+            }
+        }
+
+        CRC32 crc = new CRC32();
+        DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new CheckedOutputStream(target, crc), 1 << 16));
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeLong(createdAt.toEpochMilli());
+        if (resumeToken == null) {
+            out.writeInt(0);
+        } else {
+            ByteBuffer token = new RawBsonDocument(resumeToken, new BsonDocumentCodec()).getByteBuffer().asNIO();
+            out.writeInt(token.remaining());
+            byte[] tokenBytes = new byte[token.remaining()];
+            token.get(tokenBytes);
+            out.write(tokenBytes);
+        }
+
+        out.writeInt(strings.size());
+        for (String value : strings) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+
+        out.writeInt(rules.size());
+        for (RegulatoryRule rule : rules) {
+            for (Function<RegulatoryRule, String> getter : TEXT_GETTERS) {
+                String value = getter.apply(rule);
+                out.writeInt(value == null ? NULL_INDEX : stringIndex.get(value));
+            }
+            for (Function<RegulatoryRule, Integer> getter : NUMBER_GETTERS) {
+                Integer value = getter.apply(rule);
+                out.writeInt(value == null ? NULL_INT : value);
+            }
+            out.writeLong(rule.getVersion() == null ? NULL_LONG : rule.getVersion());
+            out.writeLong(rule.getChangeSeq() == null ? NULL_LONG : rule.getChangeSeq());
+        }
+        out.flush();
+        out.writeLong(crc.getValue());
+        out.flush();
+    }
+
+    /**
+     * Reads a snapshot by mapping the file into memory.
+     *
+     * @throws IllegalArgumentException if the file is not a snapshot of the current format or is corrupt
+     */
+    public static RuleSnapshot readFrom(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < 16 || buffer.getInt() != MAGIC) {
+                throw new IllegalArgumentException("Not a rule snapshot");
+            }
+            int formatVersion = buffer.getInt();
+            if (formatVersion != FORMAT_VERSION) {
+                throw new IllegalArgumentException("Unsupported snapshot format version " + formatVersion);
+            }
+            CRC32 crc = new CRC32();
+            crc.update(buffer.duplicate().position(0).limit(buffer.capacity() - Long.BYTES));
+            if (crc.getValue() != buffer.getLong(buffer.capacity() - Long.BYTES)) {
+                throw new IllegalArgumentException("Snapshot checksum mismatch");
+            }
+
+            Instant createdAt = Instant.ofEpochMilli(buffer.getLong());
+            int tokenLength = buffer.getInt();
+            BsonDocument resumeToken = null;
+            if (tokenLength > 0) {
+                byte[] token = new byte[tokenLength];
+                buffer.get(token);
+                resumeToken = new RawBsonDocument(token);
+            }
+
+            String[] strings = new String[buffer.getInt()];
+            for (int i = 0; i < strings.length; i++) {
+                byte[] bytes = new byte[buffer.getInt()];
+                buffer.get(bytes);
+                strings[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+
+            int ruleCount = buffer.getInt();
+            List<RegulatoryRule> rules = new ArrayList<>(ruleCount);
+            for (int i = 0; i < ruleCount; i++) {
+                RegulatoryRule rule = new RegulatoryRule();
+                for (BiConsumer<RegulatoryRule, String> setter : TEXT_SETTERS) {
+                    int index = buffer.getInt();
+                    setter.accept(rule, index == NULL_INDEX ? null : strings[index]);
+                }
+                for (BiConsumer<RegulatoryRule, Integer> setter : NUMBER_SETTERS) {
+                    int value = buffer.getInt();
+                    setter.accept(rule, value == NULL_INT ? null : value);
+                }
+                long version = buffer.getLong();
+                rule.setVersion(version == NULL_LONG ? null : version);
+                long changeSeq = buffer.getLong();
+                rule.setChangeSeq(changeSeq == NULL_LONG ? null : changeSeq);
+                rules.add(rule);
+            }
+            return new RuleSnapshot(rules, resumeToken, createdAt);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.regulatory.perf;
+
+import com.regulatory.model.RegulatoryRule;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates deterministic synthetic rule sets for benchmarks and load tests. The value distributions
+ * roughly follow production: mostly state rules, every state pair represented, and optional fields
+ * left empty often enough to exercise wildcard matching.
+ */
+public final class SyntheticRuleGenerator {
+
+    public static final List<String> STATES = List.of(
+            "AL", "AK", "AZ", "AR", "CA", "CO", "CT", "DE", "FL", "GA",
+            "HI", "ID", "IL", "IN", "IA", "KS", "KY", "LA", "ME", "MD",
+            "MA", "MI", "MN", "MS", "MO", "MT", "NE", "NV", "NH", "NJ",
+            "NM", "NY", "NC", "ND", "OH", "OK", "OR", "PA", "RI", "SC",
+            "SD", "TN", "TX", "UT", "VT", "VA", "WA", "WV", "WI", "WY");
+
+    public static final List<String> CHANNELS = List.of("RETAIL", "MAIL", "SPECIALTY");
+
+    private static final List<String> SCHEDULES = List.of("II", "III", "IV", "V");
+    private static final List<String> LOCATIONS = List.of("PHARMACY", "CLINIC", "HOSPITAL", "HOME");
+    private static final List<String> PROTOCOLS = List.of("STANDARD", "EMERGENCY", "TRANSFER", "PRIOR_AUTH");
+
+    private SyntheticRuleGenerator() {
+    }
+
+    public static List<RegulatoryRule> generate(int count, long seed) {
+        Random random = new Random(seed);
+        List<RegulatoryRule> rules = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            rules.add(generateRule(random, i));
+        }
+        return rules;
+    }
+
+    public static RegulatoryRule generateRule(Random random, int ordinal) {
+        RegulatoryRule rule = new RegulatoryRule();
+        rule.setId(String.format("%024x", ordinal + 1));
+        rule.setSequenceNumber(String.format("R%09d", ordinal + 1));
+        rule.setRuleType(random.nextInt(5) == 0 ? "Federal" : "State");
+        rule.setMdState(pick(random, STATES));
+        rule.setShipToState(pick(random, STATES));
+        rule.setZipCode(random.nextInt(10) < 3 ? String.format("%05d", random.nextInt(100_000)) : null);
+        rule.setChannel(random.nextInt(5) == 0 ? null : pick(random, CHANNELS));
+        rule.setRegCatCode(random.nextInt(10) < 4 ? null : "RC" + random.nextInt(50));
+        rule.setDrugSchedule(random.nextBoolean() ? null : pick(random, SCHEDULES));
+        rule.setUserLocation(pick(random, LOCATIONS));
+        rule.setDispensingLocation(pick(random, LOCATIONS));
+        rule.setProtocol(pick(random, PROTOCOLS));
+        rule.setDaysAgo(random.nextInt(365));
+
+        int maxRefill = random.nextInt(12);
+        int maxQuantity = 30 + random.nextInt(300);
+        int maxDaysSupply = 30 * (1 + random.nextInt(3));
+        rule.setMaxRefill(maxRefill);
+        rule.setMaxQuantity(maxQuantity);
+        rule.setMaxDaysSupply(maxDaysSupply);
+        rule.setMaxDaysAllowedToExpiryDate(180 + random.nextInt(185));
+        rule.setRefillNumber(random.nextInt(maxRefill + 1));
+        rule.setQuantity(random.nextInt(maxQuantity + 1));
+        rule.setDaysSupply(random.nextInt(maxDaysSupply + 1));
+        return rule;
+    }
+
+    private static String pick(Random random, List<String> values) {
+        return values.get(random.nextInt(values.size()));
+    }
+}
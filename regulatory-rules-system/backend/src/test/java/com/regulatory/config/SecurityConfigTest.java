@@ -0,0 +1,71 @@
+package com.regulatory.config;
+
+import com.regulatory.controller.ReactiveRulesController;
+import com.regulatory.repository.ReactiveRegulatoryRulesRepository;
+import com.regulatory.repository.RegulatoryRulesRepository;
+import com.regulatory.repository.RegulatoryRulesRepositoryCustomImpl;
+import com.regulatory.service.RuleEvaluationService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.web.servlet.MockMvc;
+import reactor.core.publisher.Mono;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Requests carry the {@code /api} context path, as they do in the running application, so the
+ * matchers are checked against the same servlet paths.
+ */
+@WebMvcTest(ReactiveRulesController.class)
+class SecurityConfigTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private ReactiveRegulatoryRulesRepository repository;
+
+    // @EnableMongoRepositories on the application class registers these even in a web slice
+    @MockBean
+    private RegulatoryRulesRepository blockingRepository;
+
+    @MockBean
+    private RegulatoryRulesRepositoryCustomImpl blockingRepositoryImpl;
+
+    @MockBean
+    private RuleEvaluationService evaluationService;
+
+    @Test
+    void rejectsAnonymousReactiveRequests() throws Exception {
+        mockMvc.perform(get("/api/reactive/rules/some-id").contextPath("/api"))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void allowsReaderOnReactiveRequests() throws Exception {
+        when(repository.findById(anyString())).thenReturn(Mono.empty());
+
+        mockMvc.perform(get("/api/reactive/rules/some-id").contextPath("/api").with(httpBasic("reader", "reader")))
+                .andExpect(request().asyncStarted());
+    }
+
+    @TestConfiguration
+    static class MetricsTestConfig {
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.regulatory.controller;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RegulatoryRulesControllerTest {
+
+    @Test
+    void acceptsGzipWhenListed() {
+        assertTrue(RegulatoryRulesController.acceptsGzip("gzip"));
+        assertTrue(RegulatoryRulesController.acceptsGzip("deflate, GZIP;q=0.5, br"));
+        assertTrue(RegulatoryRulesController.acceptsGzip("x-gzip"));
+        assertTrue(RegulatoryRulesController.acceptsGzip("*"));
+    }
+
+    @Test
+    void refusesGzipWhenExcludedOrMissing() {
+        assertFalse(RegulatoryRulesController.acceptsGzip(null));
+        assertFalse(RegulatoryRulesController.acceptsGzip("identity"));
+        assertFalse(RegulatoryRulesController.acceptsGzip("gzip;q=0"));
+        assertFalse(RegulatoryRulesController.acceptsGzip("gzip; q=0.0, deflate"));
+        assertFalse(RegulatoryRulesController.acceptsGzip("*, gzip;q=0"));
+        assertFalse(RegulatoryRulesController.acceptsGzip("*;q=0"));
+        assertFalse(RegulatoryRulesController.acceptsGzip("notgzip"));
+    }
+}
@@ -0,0 +1,125 @@
+package com.regulatory.repository;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.client.MongoCollection;
+import com.regulatory.config.MongoIndexInitializer;
+import com.regulatory.model.RegulatoryRule;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Checks with explain() that the listing query for every filter combination, sorted by sequenceNumber,
+ * is an index scan on the matching index of {@link MongoIndexInitializer} with no in-memory SORT.
+ * Needs a real mongod, so it only runs when RULES_TEST_MONGODB_URI is set (e.g. mongodb://localhost:27017);
+ * it works in a throwaway database that is dropped afterwards.
+ */
+@EnabledIfEnvironmentVariable(named = "RULES_TEST_MONGODB_URI", matches = ".+")
+class RuleFilterQueriesExplainTest {
+
+    private static final String[] FILTER_FIELDS = {"ruleType", "mdState", "shipToState", "channel"};
+    private static final String[] RULE_TYPES = {"State", "Federal", "Channel"};
+    private static final String[] STATES = {"CA", "NY", "TX", "FL", "WA"};
+    private static final String[] CHANNELS = {"RETAIL", "MAIL", "SPECIALTY"};
+
+    private static MongoClient client;
+    private static String database;
+    private static MongoCollection<Document> collection;
+
+    @BeforeAll
+    static void createIndexesAndRules() {
+        client = MongoClients.create(System.getenv("RULES_TEST_MONGODB_URI"));
+        database = "rules_explain_test_" + new ObjectId().toHexString();
+        MongoTemplate mongoTemplate = new MongoTemplate(client, database);
+        new MongoIndexInitializer(mongoTemplate).ensureIndexes();
+
+        // Enough spread over the filter fields that the planner has to choose between the indexes
+        collection = mongoTemplate.getCollection(mongoTemplate.getCollectionName(RegulatoryRule.class));
+        collection.insertMany(IntStream.range(0, 5000)
+                .mapToObj(i -> new Document("ruleType", RULE_TYPES[i % RULE_TYPES.length])
+                        .append("mdState", STATES[i % STATES.length])
+                        .append("shipToState", STATES[(i / STATES.length) % STATES.length])
+                        .append("channel", CHANNELS[(i / 7) % CHANNELS.length])
+                        .append("sequenceNumber", String.format("E%07d", i))
+                        .append("version", 0L)
+                        .append("changeSeq", (long) i))
+                .collect(Collectors.toList()));
+    }
+
+    @AfterAll
+    static void dropDatabase() {
+        if (client != null) {
+            client.getDatabase(database).drop();
+            client.close();
+        }
+    }
+
+    static Stream<List<String>> filterCombinations() {
+        return IntStream.range(0, 1 << FILTER_FIELDS.length)
+                .mapToObj(mask -> IntStream.range(0, FILTER_FIELDS.length)
+                        .filter(i -> (mask & (1 << i)) != 0)
+                        .mapToObj(i -> FILTER_FIELDS[i])
+                        .collect(Collectors.toList()));
+    }
+
+    @ParameterizedTest
+    @MethodSource("filterCombinations")
+    void listingUsesTheIndexOfItsFiltersWithoutSorting(List<String> filters) {
+        Document filter = RuleFilterQueries.filterQuery(
+                filters.contains("ruleType") ? "State" : null,
+                filters.contains("mdState") ? "CA" : null,
+                filters.contains("shipToState") ? "NY" : null,
+                filters.contains("channel") ? "MAIL" : null).getQueryObject();
+
+        Document explain = collection.find(filter)
+                .sort(new Document("sequenceNumber", 1).append("_id", 1))
+                .limit(25)
+                .explain();
+
+        Document winningPlan = explain.get("queryPlanner", Document.class).get("winningPlan", Document.class);
+        // Servers running the slot-based engine nest the classic plan one level down
+        if (winningPlan.containsKey("queryPlan")) {
+            winningPlan = winningPlan.get("queryPlan", Document.class);
+        }
+        List<Document> stages = new ArrayList<>();
+        collectStages(winningPlan, stages);
+
+        List<String> expectedKeys = new ArrayList<>(filters);
+        expectedKeys.add("sequenceNumber");
+        expectedKeys.add("_id");
+        List<String> indexScans = stages.stream()
+                .filter(stage -> "IXSCAN".equals(stage.getString("stage")))
+                .map(stage -> stage.getString("indexName"))
+                .collect(Collectors.toList());
+        assertEquals(List.of("rules_" + String.join("_", expectedKeys)), indexScans, winningPlan.toJson());
+        assertFalse(stages.stream().anyMatch(stage -> "SORT".equals(stage.getString("stage"))), winningPlan.toJson());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void collectStages(Document stage, List<Document> stages) {
+        stages.add(stage);
+        Document input = stage.get("inputStage", Document.class);
+        if (input != null) {
+            collectStages(input, stages);
+        }
+        List<Document> inputs = stage.get("inputStages", List.class);
+        if (inputs != null) {
+            inputs.forEach(child -> collectStages(child, stages));
+        }
+    }
+}
@@ -1,5 +1,7 @@
 import React, { useState, useEffect } from 'react';
+import { useQuery } from '@tanstack/react-query';
 import {
+  Autocomplete,
   Box,
   Grid,
   TextField,
@@ -16,10 +18,15 @@ import FilterAltIcon from '@mui/icons-material/FilterAlt';
 import ClearIcon from '@mui/icons-material/Clear';
 import KeyboardArrowDownIcon from '@mui/icons-material/KeyboardArrowDown';
 import KeyboardArrowUpIcon from '@mui/icons-material/KeyboardArrowUp';
+import { rulesApi, queryKeys } from '../../services/api';
 
-export default function RuleFilters({ fieldMetadata, filters, onFilterChange }) {
+const SEARCH_DEBOUNCE_MS = 150;
+
+export default function RuleFilters({ fieldMetadata, filters, facets, onFilterChange, onSearchSelect }) {
   const [localFilters, setLocalFilters] = useState(filters);
   const [expanded, setExpanded] = useState(true);
+  const [searchInput, setSearchInput] = useState('');
+  const [searchQuery, setSearchQuery] = useState('');
   const theme = useTheme();
 
   // Reset local filters when parent filters change
@@ -27,6 +34,22 @@ export default function RuleFilters({ fieldMetadata, filters, onFilterChange })
     setLocalFilters(filters);
   }, [filters]);
 
+  // Only search once typing pauses
+  useEffect(() => {
+    const timer = setTimeout(() => setSearchQuery(searchInput.trim()), SEARCH_DEBOUNCE_MS);
+    return () => clearTimeout(timer);
+  }, [searchInput]);
+
+  // Keyed under rules so rule writes refresh the suggestions
+  const { data: searchData, isFetching: isSearching } = useQuery(
+    [queryKeys.rules, queryKeys.search, searchQuery],
+    () => rulesApi.searchRules(searchQuery).then(res => res.data),
+    {
+      enabled: searchQuery.length > 0,
+      keepPreviousData: true
+    }
+  );
+
   const handleFilterChange = (field, value) => {
     const newFilters = {
       ...localFilters,
@@ -73,11 +96,14 @@ export default function RuleFilters({ fieldMetadata, filters, onFilterChange })
             <MenuItem value="">
               <em>Any</em>
             </MenuItem>
-            {field.options.map((option) => (
-              <MenuItem key={option} value={option}>
-                {option}
-              </MenuItem>
-            ))}
+            {field.options.map((option) => {
+              const counts = facets?.[field.field];
+              return (
+                <MenuItem key={option} value={option}>
+                  {counts ? `${option} (${counts[option] || 0})` : option}
+                </MenuItem>
+              );
+            })}
           </TextField>
         );
 
@@ -153,6 +179,36 @@ export default function RuleFilters({ fieldMetadata, filters, onFilterChange })
 
       <Collapse in={expanded}>
         <Grid container spacing={2} alignItems="flex-start">
+          {/* Search as you type */}
+          <Grid item xs={12}>
+            <Autocomplete
+              size="small"
+              options={searchQuery ? searchData?.content || [] : []}
+              loading={isSearching}
+              filterOptions={(options) => options}
+              getOptionLabel={(hit) => hit.rule.sequenceNumber || ''}
+              isOptionEqualToValue={(hit, value) => hit.rule.id === value.rule.id}
+              renderOption={(props, hit) => (
+                <li {...props} key={hit.rule.id}>
+                  {hit.rule.sequenceNumber}
+                  <Typography variant="caption" color="text.secondary" sx={{ ml: 1 }}>
+                    {hit.field}: {hit.value}
+                  </Typography>
+                </li>
+              )}
+              inputValue={searchInput}
+              onInputChange={(event, value) => setSearchInput(value)}
+              onChange={(event, hit) => hit && onSearchSelect?.(hit.rule)}
+              noOptionsText={searchQuery ? 'No matching rules' : 'Type to search'}
+              renderInput={(params) => (
+                <TextField
+                  {...params}
+                  label="Search sequence number, zip code, reg cat code, protocol or user location"
+                />
+              )}
+            />
+          </Grid>
+
           {/* Filter Fields */}
           {fieldMetadata?.map((field) => (
             <Grid item xs={12} sm={6} md={3} key={field.field}>
@@ -20,6 +20,12 @@ import EditIcon from '@mui/icons-material/Edit';
 import { useAccess } from '../../context/AccessContext';
 import { visuallyHidden } from '@mui/utils';
 
+// Fields the table displays; the page requests only these from the API
+export const TABLE_FIELDS = [
+  'sequenceNumber', 'ruleType', 'mdState', 'shipToState', 'channel',
+  'regCatCode', 'drugSchedule', 'refillNumber', 'quantity', 'daysSupply'
+];
+
 export default function RulesTable({
   rules,
   isLoading,
@@ -14,7 +14,7 @@ import {
 import AddIcon from '@mui/icons-material/Add';
 import { rulesApi, queryKeys } from '../services/api';
 import { useAccess } from '../context/AccessContext';
-import RulesTable from '../components/rules/RulesTable';
+import RulesTable, { TABLE_FIELDS } from '../components/rules/RulesTable';
 import RuleFilters from '../components/rules/RuleFilters';
 import RuleForm from '../components/rules/RuleForm';
 
@@ -55,13 +55,23 @@ export default function RegulatoryRulesPage() {
       ...filters,
       page,
       size: pageSize,
-      sort: `${sortField},${sortOrder}`
+      sort: `${sortField},${sortOrder}`,
+      fields: TABLE_FIELDS.join(',')
     }).then(res => res.data),
     {
       keepPreviousData: true
     }
   );
 
+  // Fetch per-value counts for the filter dropdowns; keyed under rules so rule writes refresh them
+  const { data: facetsData } = useQuery(
+    [queryKeys.rules, queryKeys.facets, filters],
+    () => rulesApi.getFacets(filters).then(res => res.data),
+    {
+      keepPreviousData: true
+    }
+  );
+
   const handleFilterChange = (newFilters) => {
     setFilters(newFilters);
     setPage(0); // Reset to first page when filters change
@@ -86,9 +96,33 @@ export default function RegulatoryRulesPage() {
     setIsFormOpen(true);
   };
 
-  const handleEditRule = (rule) => {
-    setSelectedRule(rule);
-    setIsFormOpen(true);
+  const handleEditRule = async (rule) => {
+    // The table only holds the displayed fields, so load the full rule for the form
+    try {
+      const response = await rulesApi.getRuleById(rule.id);
+      setSelectedRule(response.data);
+      setIsFormOpen(true);
+    } catch (error) {
+      setNotification({
+        open: true,
+        message: `Error loading rule: ${error.message}`,
+        severity: 'error'
+      });
+    }
+  };
+
+  const handleSearchSelect = (rule) => {
+    if (isWriteAccess) {
+      handleEditRule(rule);
+    } else {
+      // Narrow the table to the rule's combination so the match is on screen
+      handleFilterChange({
+        ruleType: rule.ruleType,
+        mdState: rule.mdState,
+        shipToState: rule.shipToState,
+        channel: rule.channel || undefined
+      });
+    }
   };
 
   const handleFormClose = () => {
@@ -154,7 +188,9 @@ export default function RegulatoryRulesPage() {
       <RuleFilters
         fieldMetadata={fieldMetadata}
         filters={filters}
+        facets={facetsData?.facets}
         onFilterChange={handleFilterChange}
+        onSearchSelect={handleSearchSelect}
       />
 
       {/* Error Display */}
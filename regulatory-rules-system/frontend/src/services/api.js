@@ -56,6 +56,14 @@ export const rulesApi = {
   updateRule: (id, rule) => 
     api.put(`/rules/${id}`, rule),
 
+  // Substring search over the rule text fields
+  searchRules: (q, size = 10) =>
+    api.get('/rules/search', { params: { q, size } }),
+
+  // Rule counts per filter value
+  getFacets: (params) =>
+    api.get('/rules/facets', { params }),
+
   // Export functionality
   exportRules: (params) => 
     api.get('/rules/extract', { 
@@ -97,6 +105,8 @@ export const downloadFile = (blob, filename) => {
 // Query keys for React Query
 export const queryKeys = {
   rules: 'rules',
+  facets: 'facets',
+  search: 'search',
   ruleDetail: (id) => ['rule', id],
   fieldMetadata: 'fieldMetadata',
   userAccess: 'userAccess'